@@ -0,0 +1,76 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the AutoPageType registry at varying sizes. Each registry size runs in its own fork, since the registry
+ * is process-wide and only grows.
+ * 
+ * Adding to the registry is measured on a PageTypeIndex of the given size, which is the work addType() does before
+ * publishing, because repeated addType() calls would grow the registry during the measurement.
+ * 
+ * @author com.kevinnovate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutoPageTypeBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int registrySize;
+
+    private PageTypeIndex index;
+    private AutoPageType added;
+    private String lookupName;
+
+    @Setup
+    public void setup() {
+        int builtIn = AutoPageType.getAll().size();
+        for (int i = builtIn; i < registrySize; i++)
+            AutoPageType.addType("Benchmark", "Type " + i, 1 + (i % 400) * 0.1, 1 + (i % 700) * 0.1, PageMeasureUnit.IN);
+
+        index = PageTypeIndex.EMPTY;
+        for (AutoPageType t : AutoPageType.getAll())
+            index = index.with(t);
+
+        added = new AutoPageType("Benchmark", "Added", 7.77, 9.99, PageMeasureUnit.IN);
+        lookupName = "Type " + (registrySize - 1);
+    }
+
+    @Benchmark
+    public List<AutoPageType> getAll() {
+        return AutoPageType.getAll();
+    }
+
+    @Benchmark
+    public PageTypeIndex addType() {
+        return index.with(added);
+    }
+
+    @Benchmark
+    public AutoPageType findByName() {
+        return AutoPageType.find("Benchmark", lookupName);
+    }
+
+    @Benchmark
+    public List<AutoPageType> findBySize() {
+        return AutoPageType.findBySize(612, 792, 1);
+    }
+
+}
@@ -0,0 +1,93 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the bulk PageMeasureUnit conversions against converting the same values one at a time
+ * 
+ * @author com.kevinnovate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkConversionBenchmark {
+
+    @Param({"IN", "MM", "PT"})
+    public String unitName;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private PageMeasureUnit unit;
+    private double[] src;
+    private double[] dst;
+    private DoubleBuffer directSrc;
+    private DoubleBuffer directDst;
+
+    @Setup
+    public void setup() {
+        unit = PageMeasureUnit.valueOf(unitName);
+        src = new double[size];
+        dst = new double[size];
+
+        Random r = new Random(42);
+        for (int i = 0; i < size; i++)
+            src[i] = r.nextDouble() * 2000;
+
+        directSrc = ByteBuffer.allocateDirect(size * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        directDst = ByteBuffer.allocateDirect(size * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        directSrc.put(src);
+    }
+
+    @Benchmark
+    public double[] toPFUnitsScalar() {
+        for (int i = 0; i < size; i++)
+            dst[i] = unit.toPFUnits(src[i]);
+        return dst;
+    }
+
+    @Benchmark
+    public double[] toPFUnitsBulk() {
+        unit.toPFUnits(src, 0, dst, 0, size);
+        return dst;
+    }
+
+    @Benchmark
+    public double[] fromPFUnitsScalar() {
+        for (int i = 0; i < size; i++)
+            dst[i] = unit.fromPFUnits(src[i]);
+        return dst;
+    }
+
+    @Benchmark
+    public double[] fromPFUnitsBulk() {
+        unit.fromPFUnits(src, 0, dst, 0, size);
+        return dst;
+    }
+
+    @Benchmark
+    public DoubleBuffer fromPFUnitsDirectBuffer() {
+        unit.fromPFUnits(directSrc, 0, directDst, 0, size);
+        return directDst;
+    }
+
+}
@@ -0,0 +1,80 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building and checking PageFormats, the work PageSetupDialog does when it reads its fields
+ * 
+ * @author com.kevinnovate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PageFormatEngineBenchmark {
+
+    @Param({"PORTRAIT", "LANDSCAPE", "REVERSE_LANDSCAPE"})
+    public String orientationName;
+
+    private int orientation;
+    private final Paper paper = new Paper();
+    private final double[] values = new double[PageFormatEngine.VALUE_COUNT];
+    private PageFormat format;
+    private PageFormat validated;
+
+    @Setup
+    public void setup() {
+        switch (orientationName) {
+            case "PORTRAIT":
+                orientation = PageFormat.PORTRAIT;
+                break;
+            case "LANDSCAPE":
+                orientation = PageFormat.LANDSCAPE;
+                break;
+            default:
+                orientation = PageFormat.REVERSE_LANDSCAPE;
+        }
+        
+        format = PageFormatEngine.create(orientation, 612, 792, 18, 18, 18, 36);
+        validated = PageFormatEngine.create(orientation, 612, 792, 18.02, 18, 18, 36);
+    }
+
+    @Benchmark
+    public PageFormat create() {
+        return PageFormatEngine.create(orientation, 612, 792, 18, 18, 18, 36);
+    }
+
+    @Benchmark
+    public Paper setPaper() {
+        PageFormatEngine.setPaper(paper, orientation, 612, 792, 18, 18, 18, 36);
+        return paper;
+    }
+
+    @Benchmark
+    public double[] getValues() {
+        PageFormatEngine.getValues(format, values);
+        return values;
+    }
+
+    @Benchmark
+    public PageFormatEngine.Status check() {
+        return PageFormatEngine.check(format, validated);
+    }
+
+}
@@ -0,0 +1,210 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.print.PageFormat;
+import java.awt.print.PrinterJob;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Profiles the cold start of the PageSetupDialog, phase by phase, and prints the result as JSON. Each run must be a fresh
+ * JVM to measure a cold start, so run it repeatedly from a script rather than in a loop:
+ *
+ *     java -cp benchmarks.jar com.kevinnovate.jpagesetup.StartupProfile [--no-printers] [--output file.json]
+ *
+ * With a display (or under Xvfb) the dialog is constructed and shown, and the time to its first paint is recorded. When
+ * headless, the phases that need a display are reported as skipped.  --no-printers skips the phases that query the
+ * print system, for machines where printer queries are not reproducible.
+ *
+ * @author com.kevinnovate
+ */
+public final class StartupProfile {
+
+    /**
+     * A PageSetupDialog that records when it is first painted
+     */
+    private static final class ProfiledDialog extends PageSetupDialog {
+        private final CountDownLatch painted = new CountDownLatch(1);
+        private volatile long paintedAt;
+
+        private ProfiledDialog(PageFormat fmt) {
+            super(null, false, fmt, null, null);
+        }
+
+        @Override
+        public void paint(Graphics g) {
+            super.paint(g);
+            if (painted.getCount() > 0) {
+                paintedAt = System.nanoTime();
+                painted.countDown();
+            }
+        }
+    }
+
+    private static final class Phase {
+        private final String name;
+        private final double millis;
+        private final long classesLoaded;
+        private final String skipped;
+
+        private Phase(String n, double m, long c, String s) {
+            name = n;
+            millis = m;
+            classesLoaded = c;
+            skipped = s;
+        }
+    }
+
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final List<Phase> phases = new ArrayList<>();
+    private final long start = System.nanoTime();
+    private long phaseStart;
+    private long phaseClasses;
+
+    private StartupProfile() {}
+
+    private void begin() {
+        phaseClasses = classLoading.getTotalLoadedClassCount();
+        phaseStart = System.nanoTime();
+    }
+
+    private void end(String name) {
+        long elapsed = System.nanoTime() - phaseStart;
+        phases.add(new Phase(name, elapsed / 1e6, classLoading.getTotalLoadedClassCount() - phaseClasses, null));
+    }
+
+    private void skip(String name, String reason) {
+        phases.add(new Phase(name, 0, 0, reason));
+    }
+
+    private double sinceStart(long t) {
+        return (t - start) / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        boolean printers = true;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--no-printers"))
+                printers = false;
+            else if (args[i].equals("--output") && i + 1 < args.length)
+                output = args[++i];
+            else {
+                System.err.println("Usage: StartupProfile [--no-printers] [--output file.json]");
+                System.exit(1);
+            }
+        }
+
+        String json = new StartupProfile().run(printers);
+        if (output == null)
+            System.out.println(json);
+        else
+            Files.write(Paths.get(output), json.getBytes(StandardCharsets.UTF_8));
+
+        System.exit(0);  //the shown dialog and discovery threads would otherwise keep the JVM alive
+    }
+
+    private String run(boolean printers) throws Exception {
+
+        ClassLoader loader = StartupProfile.class.getClassLoader();
+        boolean headless = GraphicsEnvironment.isHeadless();
+
+        begin();
+        Class.forName("com.kevinnovate.jpagesetup.PageMeasureUnit", true, loader);
+        end("pageMeasureUnitInit");
+
+        begin();
+        Class.forName("com.kevinnovate.jpagesetup.AutoPageType", true, loader);  //runs the static initializer with the ISO size loops
+        end("autoPageTypeInit");
+
+        begin();
+        AutoPageType.getCategories();
+        end("autoPaperCategories");
+
+        begin();
+        PageFormatEngine.create(PageFormat.PORTRAIT, 612, 792, 72, 72, 72, 72);
+        end("pageFormatEngineInit");
+
+        PageFormat fmt = null;
+        if (printers) {
+            begin();
+            PrinterJob.lookupPrintServices();  //done in the background by the dialog, but paid by the first dialog to show printers
+            end("printServiceLookup");
+
+            begin();
+            fmt = PrinterValidator.validateForPrinter(null, null);
+            end("defaultPageValidation");
+        } else {
+            skip("printServiceLookup", "no-printers");
+            skip("defaultPageValidation", "no-printers");
+            fmt = PageFormatEngine.create(PageFormat.PORTRAIT, 612, 792, 72, 72, 72, 72);
+        }
+
+        begin();
+        Class.forName("com.kevinnovate.jpagesetup.PageSetupDialog", true, loader);  //loads the static orientation icons
+        end("dialogClassInit");
+
+        long constructedAt = 0;
+        long paintedAt = 0;
+        if (headless) {
+            skip("dialogConstruction", "headless");
+            skip("firstPaint", "headless");
+        } else {
+            PageFormat initial = fmt;
+            ProfiledDialog[] dialog = new ProfiledDialog[1];
+            begin();
+            SwingUtilities.invokeAndWait(() -> dialog[0] = new ProfiledDialog(initial));
+            end("dialogConstruction");
+            constructedAt = System.nanoTime();
+
+            begin();
+            SwingUtilities.invokeLater(() -> dialog[0].setVisible(true));
+            if (dialog[0].painted.await(30, TimeUnit.SECONDS)) {
+                paintedAt = dialog[0].paintedAt;
+                phases.add(new Phase("firstPaint", (paintedAt - phaseStart) / 1e6, classLoading.getTotalLoadedClassCount() - phaseClasses, null));
+            } else
+                skip("firstPaint", "timeout");
+
+            SwingUtilities.invokeAndWait(() -> dialog[0].dispose());
+        }
+
+        return toJson(headless, printers, constructedAt, paintedAt);
+    }
+
+    private String toJson(boolean headless, boolean printers, long constructedAt, long paintedAt) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"javaVersion\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"os\": \"").append(System.getProperty("os.name")).append("\",\n");
+        sb.append("  \"headless\": ").append(headless).append(",\n");
+        sb.append("  \"printers\": ").append(printers).append(",\n");
+        sb.append("  \"jvmUptimeAtStartMillis\": ").append(ManagementFactory.getRuntimeMXBean().getUptime() - (System.nanoTime() - start) / 1000000).append(",\n");
+        sb.append("  \"timeToConstructedMillis\": ").append(constructedAt == 0 ? "null" : sinceStart(constructedAt)).append(",\n");
+        sb.append("  \"timeToFirstPaintMillis\": ").append(paintedAt == 0 ? "null" : sinceStart(paintedAt)).append(",\n");
+        sb.append("  \"phases\": [\n");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase p = phases.get(i);
+            sb.append("    {\"name\": \"").append(p.name).append("\", ");
+            if (p.skipped != null)
+                sb.append("\"skipped\": \"").append(p.skipped).append("\"}");
+            else
+                sb.append("\"millis\": ").append(p.millis).append(", \"classesLoaded\": ").append(p.classesLoaded).append("}");
+            sb.append(i < phases.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n");
+        sb.append("}");
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,73 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.text.DecimalFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the PageMeasureUnit conversions to and from PageFormat units, and formatting values with a UnitFormatter
+ * compared to a DecimalFormat
+ * 
+ * @author com.kevinnovate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnitConversionBenchmark {
+
+    @Param({"IN", "MM", "PT"})
+    public String unitName;
+
+    private PageMeasureUnit unit;
+    private double value;
+    private double pfValue;
+    private UnitFormatter formatter;
+    private DecimalFormat decimalFormat;
+    private final StringBuilder sb = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        unit = PageMeasureUnit.valueOf(unitName);
+        value = 8.5;
+        pfValue = 612.3;
+        formatter = unit.getFormatter(Locale.US);
+        decimalFormat = formatter.newDecimalFormat();
+    }
+
+    @Benchmark
+    public double toPFUnits() {
+        return unit.toPFUnits(value);
+    }
+
+    @Benchmark
+    public double fromPFUnits() {
+        return unit.fromPFUnits(pfValue);
+    }
+
+    @Benchmark
+    public StringBuilder formatUnitFormatter() {
+        sb.setLength(0);
+        return formatter.format(value, sb);
+    }
+
+    @Benchmark
+    public String formatDecimalFormat() {
+        return decimalFormat.format(value);
+    }
+
+}
@@ -0,0 +1,102 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.PrinterException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures validation against a stub PrintService. A PrinterJob only accepts the platform's own print services, so the 
+ * stub exercises the cached validation path and the cache lookups, not the platform validation.
+ * 
+ * The uncached validation against a printer model is measured with a SimulatedPrintService, whose cached result is
+ * discarded before each invocation.
+ * 
+ * @author com.kevinnovate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+    /**
+     * A simulated printer whose cached results are discarded before each invocation. In its own state, so that only the
+     * benchmark using it pays for the per-invocation setup.
+     */
+    @State(Scope.Thread)
+    public static class Simulated {
+        private SimulatedPrintService service;
+
+        @Setup
+        public void setup() throws IOException {
+            service = new SimulatedPrintService(PrinterCapabilities.load(new ByteArrayInputStream((
+                      "name = Benchmark Laser\n"
+                    + "unit = mm\n"
+                    + "default = A4\n"
+                    + "media.A4.size = 210 297\n"
+                    + "media.A4.margins = 4.2 4.2 4.2 4.2\n"
+                    + "media.Letter.size = 215.9 279.4\n"
+                    + "media.Letter.margins = 6.4 4.2 6.4 4.2\n"
+                    + "custom.min = 76 127\n"
+                    + "custom.max = 216 356\n"
+                    + "custom.margins = 2 2 2 2\n").getBytes(StandardCharsets.UTF_8))));
+        }
+
+        @Setup(Level.Invocation)
+        public void discard() {
+            ValidationCache.getShared().invalidate(service);
+        }
+    }
+
+    private final StubPrintService service = new StubPrintService("Benchmark Printer");
+    private final ValidationCache cache = new ValidationCache(ValidationCache.DEFAULT_CAPACITY);
+    private PageFormat format;
+    private PageFormat uncached;
+
+    @Setup
+    public void setup() {
+        format = PageFormatEngine.create(PageFormat.PORTRAIT, 612, 792, 18, 18, 18, 18);
+        uncached = PageFormatEngine.create(PageFormat.PORTRAIT, 612, 792, 20, 20, 20, 20);
+        
+        ValidationCache.getShared().put(service, format, format);
+        cache.put(service, format, format);
+    }
+
+    @Benchmark
+    public PageFormat validateCached() throws PrinterException {
+        return PrinterValidator.validate(service, format);
+    }
+
+    @Benchmark
+    public PageFormat validateUncached(Simulated simulated) throws PrinterException {
+        return PrinterValidator.validate(simulated.service, format);
+    }
+
+    @Benchmark
+    public PageFormat cacheHit() {
+        return cache.get(service, format);
+    }
+
+    @Benchmark
+    public PageFormat cacheMiss() {
+        return cache.get(service, uncached);
+    }
+
+}
@@ -1,29 +1,106 @@
 
 package com.kevinnovate.jpagesetup;
 
-import java.util.LinkedList;
+import java.awt.print.PageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Encapsulates a predefined Page type for selection by PageSetupDialog. Many different US and international types are available.
  * 
- * A user can add custom types as well.
+ * A user can add custom types as well. Types are unique by category and name, and can be looked up by name or by dimensions.
+ * Large sets of types can be attached as a PaperCatalog.
  * 
  * @author com.kevinnovate
  */
 final class AutoPageType {
 
-    private static final LinkedList<AutoPageType> types = new LinkedList<>();
+    //The published snapshot of all types. Readers never lock, writers atomically replace the snapshot.
+    private static final AtomicReference<PageTypeIndex> snapshot = new AtomicReference<>(PageTypeIndex.EMPTY);
 
     
     /**
-     * Get all possible AutoPageType objects. This method is synchronized with addType().
-     * @return an array of AutoPageType objects
+     * Get all possible AutoPageType objects. This method never blocks and does not allocate.
+     * @return an unmodifiable list of all types, in the order they were added
      */
-    public static synchronized AutoPageType[] getAll() {
-          
-        AutoPageType[] array = new AutoPageType[types.size()];
-        types.toArray(array);
-        return array;
+    public static List<AutoPageType> getAll() {
+        return snapshot.get().getTypes();
+    }
+    
+    /**
+     * Get all AutoPageType objects grouped by category. The grouping is computed once per set of types and shared.
+     * @return an unmodifiable map from category to its types, both in the order they were added
+     */
+    public static Map<String, List<AutoPageType>> getCategories() {
+        return snapshot.get().getCategories();
+    }
+    
+    /**
+     * Get the full text index over the name, category and dimension string of all types. The index is built once per set
+     * of types and shared.
+     * @return the search index
+     */
+    static PageTypeSearchIndex getSearchIndex() {
+        return snapshot.get().getSearchIndex();
+    }
+    
+    /**
+     * Find a type by its category and name
+     * @param category the category of the type
+     * @param name the name of the type
+     * @return the type, or null if there is no such type
+     */
+    public static AutoPageType find(String category, String name) {
+        return snapshot.get().find(category, name);
+    }
+    
+    /**
+     * Find the types with exactly the given dimensions
+     * @param width the width in PageFormat units
+     * @param height the height in PageFormat units
+     * @return the matching types, empty if there are none
+     */
+    public static List<AutoPageType> findBySize(double width, double height) {
+        return findBySize(width, height, 0);
+    }
+    
+    /**
+     * Find the types whose width and height are each within a tolerance of the given dimensions. The orientation is
+     * not considered, so a landscape size does not match a portrait type.
+     * @param width the width in PageFormat units
+     * @param height the height in PageFormat units
+     * @param tolerance the largest difference in each dimension, in PageFormat units
+     * @return the matching types ordered by width and then height, empty if there are none
+     */
+    public static List<AutoPageType> findBySize(double width, double height, double tolerance) {
+        return snapshot.get().findBySize(width, height, tolerance);
+    }
+    
+    /**
+     * Find the type nearest to the paper size of a PageFormat, in either orientation
+     * @param f the PageFormat, for instance a printer's default page
+     * @param tolerance the largest distance to accept, in PageFormat units
+     * @return the nearest match, or null if no type is within the tolerance
+     */
+    public static PageTypeMatcher.Match match(PageFormat f, double tolerance) {
+        return snapshot.get().match(f.getWidth(), f.getHeight(), tolerance);
+    }
+    
+    /**
+     * Add the types of a paper catalog. They are found by find(), findBySize() and match(), without being loaded, but are
+     * not listed by getAll() or getCategories(). Types already registered take precedence over catalog types of the same
+     * category and name.
+     * @param c the opened catalog
+     */
+    public static void addCatalog(PaperCatalog c) {
+        while (true) {
+            PageTypeIndex current = snapshot.get();
+            if (snapshot.compareAndSet(current, current.withCatalog(c)))
+                return;
+        }
     }
     
     //Constants for ISO size calculations. Formulas from: https://en.wikipedia.org/wiki/Paper_size#Overview:_ISO_paper_sizes
@@ -41,119 +118,147 @@ final class AutoPageType {
     }
     
     /**
-     * Add a new custom type to the list. This method is synchronized with getAll().
+     * Add a new custom type to the list. Readers see either the list before or after the addition, and are never blocked.
+     * Each addition copies the indexes of all types, so adding many types one by one takes quadratic time: import them
+     * with the PaperTypeImporter, which adds them at once, or attach them as a PaperCatalog.
      * @param category the category, which can match an existing category to group with
      * @param name the new unique name
      * @param width width of the paper 
      * @param height height of the paper
      * @param unit units of width and height
-     * @return true if added, false if the name already exists
+     * @return true if added, false if the name already exists in the category
      */
-    public static synchronized boolean addType(String category, String name, double width, double height, PageMeasureUnit unit) {
+    public static boolean addType(String category, String name, double width, double height, PageMeasureUnit unit) {
         AutoPageType t = new AutoPageType(category, name, width, height, unit);
-        if (types.contains(t))
-            return false;
         
-        types.add(t);
-        return true;
+        while (true) {
+            PageTypeIndex current = snapshot.get();
+            PageTypeIndex next = current.with(t);
+            if (next == current)  //already exists
+                return false;
+            if (snapshot.compareAndSet(current, next))
+                return true;
+        }
+    }
+    
+    /**
+     * Add many types with a single publication, so readers see either none or all of them. Types whose category and name
+     * already exist, or appear earlier in the collection, are skipped.
+     * @param types the types to add
+     * @return the number of types added
+     */
+    static int addTypes(Collection<AutoPageType> types) {
+        while (true) {
+            PageTypeIndex current = snapshot.get();
+            PageTypeIndex next = current.withAll(types);
+            if (next == current || snapshot.compareAndSet(current, next))
+                return next.size() - current.size();
+        }
+    }
+    
+    private static ArrayList<AutoPageType> builtIn = new ArrayList<>();  //collected by the static initializer, then published at once
+    
+    private static void add(AutoPageType t) {
+        builtIn.add(t);
     }
     
     
     static {
         
         //US and Canada sizes
-        types.add(new AutoPageType("US/ANSI", "Letter (ANSI A)", 8.5, 11, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US/ANSI", "Legal", 8.5, 14, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US/ANSI", "Tabloid/Ledger (ANSI B)", 11, 17, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US/ANSI", "Executive", 7.25, 10.55, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US/ANSI", "Government Letter", 8.5, 10.5, PageMeasureUnit.IN));
-        types.add(new AutoPageType("US/ANSI", "Government Legal (Oficio/Folio)", 8.5, 13, PageMeasureUnit.IN));
-        types.add(new AutoPageType("US/ANSI", "ANSI C", 17, 22, PageMeasureUnit.IN));
-        types.add(new AutoPageType("US/ANSI", "ANSI D", 22, 34, PageMeasureUnit.IN));
-        types.add(new AutoPageType("US/ANSI", "ANSI E", 34, 44, PageMeasureUnit.IN));
-        types.add(new AutoPageType("US/ANSI", "Half Letter (Statement/Stationery)", 5.5, 8.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US/ANSI", "Junior Legal", 5, 6, PageMeasureUnit.IN));
+        add(new AutoPageType("US/ANSI", "Letter (ANSI A)", 8.5, 11, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US/ANSI", "Legal", 8.5, 14, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US/ANSI", "Tabloid/Ledger (ANSI B)", 11, 17, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US/ANSI", "Executive", 7.25, 10.55, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US/ANSI", "Government Letter", 8.5, 10.5, PageMeasureUnit.IN));
+        add(new AutoPageType("US/ANSI", "Government Legal (Oficio/Folio)", 8.5, 13, PageMeasureUnit.IN));
+        add(new AutoPageType("US/ANSI", "ANSI C", 17, 22, PageMeasureUnit.IN));
+        add(new AutoPageType("US/ANSI", "ANSI D", 22, 34, PageMeasureUnit.IN));
+        add(new AutoPageType("US/ANSI", "ANSI E", 34, 44, PageMeasureUnit.IN));
+        add(new AutoPageType("US/ANSI", "Half Letter (Statement/Stationery)", 5.5, 8.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US/ANSI", "Junior Legal", 5, 6, PageMeasureUnit.IN));
               
-        types.add(new AutoPageType("US Envelope (Commercial)", "6-1/4", 6.0, 3.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "6-3/4", 6.5, 3.625, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "7", 6.75, 3.75, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "7-3/4 (Monarch)", 7.5, 3.875, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "8-5/8", 8.625, 3.625, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "9", 8.875, 3.875, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "10 (Common)", 9.5, 4.125, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "11", 10.375, 4.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "12", 11, 4.75, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "14", 11.5, 5.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Commercial)", "16", 12, 6.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "6-1/4", 6.0, 3.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "6-3/4", 6.5, 3.625, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "7", 6.75, 3.75, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "7-3/4 (Monarch)", 7.5, 3.875, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "8-5/8", 8.625, 3.625, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "9", 8.875, 3.875, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "10 (Common)", 9.5, 4.125, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "11", 10.375, 4.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "12", 11, 4.75, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "14", 11.5, 5.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Commercial)", "16", 12, 6.0, PageMeasureUnit.IN)); 
           
-        types.add(new AutoPageType("US Envelope (Announcement)", "A1", 3.625, 5.125, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A2 (Lady Grey)", 5.75, 4.375, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A4", 6.25, 4.25, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A6 (Thompson's Standard)", 6.5, 4.75, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A7 (Besselheim)", 7.25, 5.25, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A8 (Carr's)", 8.125, 5.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A9 (Diplomat)", 8.75, 5.75, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A10 (Willow)", 9.5, 6.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Announcement)", "A Long", 8.875, 3.875, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A1", 3.625, 5.125, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A2 (Lady Grey)", 5.75, 4.375, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A4", 6.25, 4.25, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A6 (Thompson's Standard)", 6.5, 4.75, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A7 (Besselheim)", 7.25, 5.25, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A8 (Carr's)", 8.125, 5.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A9 (Diplomat)", 8.75, 5.75, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A10 (Willow)", 9.5, 6.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Announcement)", "A Long", 8.875, 3.875, PageMeasureUnit.IN)); 
      
-        types.add(new AutoPageType("US Envelope (Catalog)", "1", 9.0, 6.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "1-3/4", 9.5, 6.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "3", 10.0, 7.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "6", 10.5, 7.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "8", 11.25, 8.25, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "9-3/4", 11.25, 8.75, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "10-1/2", 12.0, 9.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "12-1/2", 12.5, 9.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "13-1/2", 13, 10.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "14-1/2", 14.5, 11.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "15", 15.0, 10.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Envelope (Catalog)", "15-1/2", 15.5, 12.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "1", 9.0, 6.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "1-3/4", 9.5, 6.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "3", 10.0, 7.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "6", 10.5, 7.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "8", 11.25, 8.25, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "9-3/4", 11.25, 8.75, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "10-1/2", 12.0, 9.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "12-1/2", 12.5, 9.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "13-1/2", 13, 10.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "14-1/2", 14.5, 11.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "15", 15.0, 10.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Envelope (Catalog)", "15-1/2", 15.5, 12.0, PageMeasureUnit.IN)); 
 
         //US Architectural
-        types.add(new AutoPageType("US Architectural", "Arch A", 9, 12.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Architectural", "Arch B", 12, 18.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Architectural", "Arch C", 18, 24.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Architectural", "Arch D", 24, 36.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Architectural", "Arch E", 36, 48.0, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("US Architectural", "Arch E1", 30, 42.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Architectural", "Arch A", 9, 12.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Architectural", "Arch B", 12, 18.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Architectural", "Arch C", 18, 24.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Architectural", "Arch D", 24, 36.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Architectural", "Arch E", 36, 48.0, PageMeasureUnit.IN)); 
+        add(new AutoPageType("US Architectural", "Arch E1", 30, 42.0, PageMeasureUnit.IN)); 
 
         
         //ISO A, B, and C sizes
         for (int i=0; i<=10; i++) {
             
-            types.add(new AutoPageType("ISO A", "A" + i, getISOWidth(i, THETA_A), getISOHeight(i, THETA_A), PageMeasureUnit.MM));
-            types.add(new AutoPageType("ISO B", "B" + i, getISOWidth(i, THETA_B), getISOHeight(i, THETA_B), PageMeasureUnit.MM));
-            types.add(new AutoPageType("ISO C", "C" + i, getISOWidth(i, THETA_C), getISOHeight(i, THETA_C), PageMeasureUnit.MM));
+            add(new AutoPageType("ISO A", "A" + i, getISOWidth(i, THETA_A), getISOHeight(i, THETA_A), PageMeasureUnit.MM));
+            add(new AutoPageType("ISO B", "B" + i, getISOWidth(i, THETA_B), getISOHeight(i, THETA_B), PageMeasureUnit.MM));
+            add(new AutoPageType("ISO C", "C" + i, getISOWidth(i, THETA_C), getISOHeight(i, THETA_C), PageMeasureUnit.MM));
             
         }
         
         //Cards
-        types.add(new AutoPageType("Card", "CR79", 3.303, 2.051, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Card", "CR80", 3.375, 2.125, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Card", "CR100", 3.88, 2.63, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Card", "International Business", 53.98, 85.6, PageMeasureUnit.MM)); 
-        types.add(new AutoPageType("Card", "US Business", 2, 3.5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Card", "Japanese Business", 50, 90, PageMeasureUnit.MM)); 
-        types.add(new AutoPageType("Card", "3x5 Index", 3, 5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Card", "4x6 Index", 4, 6, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Card", "5x8 Index", 5, 8, PageMeasureUnit.IN));         
+        add(new AutoPageType("Card", "CR79", 3.303, 2.051, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Card", "CR80", 3.375, 2.125, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Card", "CR100", 3.88, 2.63, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Card", "International Business", 53.98, 85.6, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Card", "US Business", 2, 3.5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Card", "Japanese Business", 50, 90, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Card", "3x5 Index", 3, 5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Card", "4x6 Index", 4, 6, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Card", "5x8 Index", 5, 8, PageMeasureUnit.IN));         
          //Photo
-        types.add(new AutoPageType("Photo", "3x5", 3, 5, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Photo", "4x6", 4, 6, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Photo", "5x7", 5, 7, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Photo", "6x8", 6, 8, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Photo", "8x10", 8, 10, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Photo", "8x12 ", 8, 12, PageMeasureUnit.IN)); 
-        types.add(new AutoPageType("Photo", "11x14 ", 11, 14, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "3x5", 3, 5, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "4x6", 4, 6, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "5x7", 5, 7, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "6x8", 6, 8, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "8x10", 8, 10, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "8x12 ", 8, 12, PageMeasureUnit.IN)); 
+        add(new AutoPageType("Photo", "11x14 ", 11, 14, PageMeasureUnit.IN)); 
               
         //Other
-        types.add(new AutoPageType("Other", "ISO DL Envelope", 220.0, 110.0, PageMeasureUnit.MM)); 
-        types.add(new AutoPageType("Other", "JIS B4", 257.0, 364.0, PageMeasureUnit.MM)); 
-        types.add(new AutoPageType("Other", "JIS B5", 182.0, 257.0, PageMeasureUnit.MM)); 
-        types.add(new AutoPageType("Other", "F4", 210.0, 330.0, PageMeasureUnit.MM)); 
-        types.add(new AutoPageType("Other", "PA4", 210.0, 280.0, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Other", "ISO DL Envelope", 220.0, 110.0, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Other", "JIS B4", 257.0, 364.0, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Other", "JIS B5", 182.0, 257.0, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Other", "F4", 210.0, 330.0, PageMeasureUnit.MM)); 
+        add(new AutoPageType("Other", "PA4", 210.0, 280.0, PageMeasureUnit.MM)); 
 
-        
+        addTypes(builtIn);  //a single snapshot, rather than a copy of the indexes per type
+        builtIn = null;
     }
      
     
@@ -173,7 +278,7 @@ final class AutoPageType {
      * @param h height, in units of u
      * @param u units for the dimension measurements
      */
-    private AutoPageType(String cat, String n, double w, double h, PageMeasureUnit u) {
+    AutoPageType(String cat, String n, double w, double h, PageMeasureUnit u) {
         category = cat;
         readableName = n;
         dimensionStr = w + " x " + h + " " + u.abbr();
@@ -216,5 +321,26 @@ final class AutoPageType {
     public PageMeasureUnit getUnit() {
         return unit;
     }
+
+    /**
+     * Types are equal if they have the same category and name
+     * @param o the object to compare
+     * @return true if o is a type with the same category and name
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof AutoPageType))
+            return false;
+        
+        AutoPageType t = (AutoPageType)o;
+        return category.equals(t.category) && readableName.equals(t.readableName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * category.hashCode() + readableName.hashCode();
+    }
     
 }
@@ -0,0 +1,154 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.PrinterException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.print.PrintService;
+
+/**
+ * Validates many PageFormats against many printers at once, for instance to decide which printers can take each of a
+ * queue of documents.  The formats are first reduced to their distinct geometries, then each geometry is validated
+ * against each printer in parallel on a ForkJoinPool, with the same check the PageSetupDialog applies when the user
+ * clicks OK.
+ *
+ * Validations go through the shared ValidationCache, so repeated batches with the same geometries are cheap. Those that
+ * have to wait for a printer block as a ForkJoinPool.ManagedBlocker, so the pool starts spare threads meanwhile rather
+ * than leave its other work, such as parallel streams on the common pool, waiting behind printer I/O.
+ *
+ * @author com.kevinnovate
+ */
+public final class BatchValidator {
+
+    private static final int THRESHOLD = 8;  //validations per task below which a task is not split
+
+    /**
+     * Validates one format against one printer, unless the result is cached
+     */
+    private static final class Validation implements ForkJoinPool.ManagedBlocker {
+        private final PrintService service;
+        private final PageFormat format;
+        private PageFormat validated;
+        private PrinterException failure;
+        private boolean looked;  //the cache was consulted, so block() need not look again
+
+        private Validation(PrintService s, PageFormat f) {
+            service = s;
+            format = f;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                validated = PrinterValidator.validateAndCache(service, format);
+            } catch (PrinterException ex) {
+                failure = ex;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!looked) {  //isReleasable() may be called more than once, count one cache lookup per cell
+                looked = true;
+                validated = ValidationCache.getShared().get(service, format);  //a cached result needs no spare thread
+            }
+            return validated != null || failure != null;
+        }
+    }
+
+    /**
+     * Validates a range of cells, splitting it in half while it is large
+     */
+    private static final class ValidateTask extends RecursiveAction {
+        private final List<PageFormat> geometries;
+        private final List<PrintService> services;
+        private final double tolerance;
+        private final byte[] cells;
+        private final int from, to;
+
+        private ValidateTask(List<PageFormat> g, List<PrintService> s, double tol, byte[] c, int f, int t) {
+            geometries = g;
+            services = s;
+            tolerance = tol;
+            cells = c;
+            from = f;
+            to = t;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ValidateTask(geometries, services, tolerance, cells, from, mid),
+                          new ValidateTask(geometries, services, tolerance, cells, mid, to));
+                return;
+            }
+
+            int n = services.size();
+            for (int i = from; i < to; i++) {
+                PageFormat f = geometries.get(i / n);
+                Validation v = new Validation(services.get(i % n), f);
+                try {
+                    ForkJoinPool.managedBlock(v);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                cells[i] = v.validated == null ? CompatibilityMatrix.FAILED : (byte)PageFormatEngine.check(f, v.validated, tolerance).ordinal();
+            }
+        }
+    }
+
+    private BatchValidator() {}
+
+    /**
+     * Validate every format against every printer on the common ForkJoinPool
+     * @param formats the formats to validate, which are not modified
+     * @param services the printers to validate against
+     * @return the results, with formats and printers in the iteration order of the collections
+     */
+    public static CompatibilityMatrix validate(Collection<? extends PageFormat> formats, Collection<? extends PrintService> services) {
+        return validate(formats, services, PageFormatEngine.DEFAULT_TOLERANCE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validate every format against every printer
+     * @param formats the formats to validate, which are not modified
+     * @param services the printers to validate against
+     * @param tolerance the largest difference in a dimension that validation may make and leave the format unchanged
+     * @param pool the pool to validate on
+     * @return the results, with formats and printers in the iteration order of the collections
+     */
+    public static CompatibilityMatrix validate(Collection<? extends PageFormat> formats, Collection<? extends PrintService> services,
+                                               double tolerance, ForkJoinPool pool) {
+
+        //Reduce the formats to their distinct geometries
+        HashMap<PageGeometry, Integer> rows = new HashMap<>();
+        ArrayList<PageFormat> geometries = new ArrayList<>();
+        int[] geometryOf = new int[formats.size()];
+        int i = 0;
+        for (PageFormat f : formats) {
+            PageGeometry g = new PageGeometry(f);
+            Integer row = rows.get(g);
+            if (row == null) {
+                row = geometries.size();
+                rows.put(g, row);
+                geometries.add((PageFormat)f.clone());
+            }
+            geometryOf[i++] = row;
+        }
+
+        List<PrintService> printers = new ArrayList<>(services);
+        byte[] cells = new byte[geometries.size() * printers.size()];
+        if (cells.length > 0)
+            pool.invoke(new ValidateTask(geometries, printers, tolerance, cells, 0, cells.length));
+
+        return new CompatibilityMatrix(printers, geometryOf, cells);
+    }
+
+}
@@ -0,0 +1,99 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.print.PrintService;
+
+/**
+ * The result of validating a set of PageFormats against a set of printers, as produced by BatchValidator.  Formats and
+ * services are referred to by their position in the collections that were validated.
+ *
+ * Formats with the same geometry share one row of results, so the matrix takes one byte per distinct geometry and
+ * printer, plus one int per format. Instances are immutable.
+ *
+ * @author com.kevinnovate
+ */
+public final class CompatibilityMatrix {
+
+    static final byte FAILED = -1;  //the printer could not be used
+    private static final PageFormatEngine.Status[] STATUSES = PageFormatEngine.Status.values();
+
+    private final List<PrintService> services;
+    private final int[] geometryOf;  //format position to its row
+    private final byte[] cells;      //row * services + service: the Status ordinal, or FAILED
+
+    CompatibilityMatrix(List<PrintService> s, int[] g, byte[] c) {
+        services = Collections.unmodifiableList(s);
+        geometryOf = g;
+        cells = c;
+    }
+
+    /**
+     * Get the number of formats validated
+     * @return the format count
+     */
+    public int getFormatCount() {
+        return geometryOf.length;
+    }
+
+    /**
+     * Get the number of distinct geometries among the formats, which is the number of validations per printer
+     * @return the geometry count
+     */
+    public int getGeometryCount() {
+        return services.isEmpty() ? 0 : cells.length / services.size();
+    }
+
+    /**
+     * Get the printers validated against
+     * @return an unmodifiable list of the printers
+     */
+    public List<PrintService> getServices() {
+        return services;
+    }
+
+    /**
+     * Get the result of validating a format against a printer
+     * @param format the position of the format
+     * @param service the position of the printer
+     * @return the status of the format on the printer, or null if the printer could not be used
+     */
+    public PageFormatEngine.Status getStatus(int format, int service) {
+        byte c = cell(format, service);
+        return c == FAILED ? null : STATUSES[c];
+    }
+
+    /**
+     * Check whether a printer can take a format without changing its paper size or orientation. The margins may change.
+     * @param format the position of the format
+     * @param service the position of the printer
+     * @return true if the printer keeps the paper size and leaves a printable area
+     */
+    public boolean isCompatible(int format, int service) {
+        byte c = cell(format, service);
+        return c == PageFormatEngine.Status.VALID.ordinal() || c == PageFormatEngine.Status.MARGINS_CHANGED.ordinal();
+    }
+
+    /**
+     * Get the printers that can take a format without changing its paper size or orientation
+     * @param format the position of the format
+     * @return the compatible printers, in the order they were validated
+     */
+    public List<PrintService> getCompatibleServices(int format) {
+        ArrayList<PrintService> compatible = new ArrayList<>();
+        for (int s = 0; s < services.size(); s++) {
+            if (isCompatible(format, s))
+                compatible.add(services.get(s));
+        }
+        return compatible;
+    }
+
+    private byte cell(int format, int service) {
+        if (service < 0 || service >= services.size())
+            throw new IndexOutOfBoundsException("Service " + service + " of " + services.size());
+        return cells[geometryOf[format] * services.size() + service];
+    }
+
+}
@@ -0,0 +1,78 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.HashMap;
+import java.util.function.Consumer;
+import javax.print.PrintService;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.event.PrintServiceAttributeEvent;
+import javax.print.event.PrintServiceAttributeListener;
+
+/**
+ * Listens to the attributes of print services and passes on changes of their configuration only.  Most notifications
+ * carry attributes that follow the printer's activity, such as its state and queued job count, and the JDK's services
+ * send all of their attributes with the first notification, so acting on every event would discard cached results
+ * each time a job is queued.
+ *
+ * The configuration of a service is recorded when it is first watched, leaving out PrintServiceWatcher.VOLATILE, and
+ * a notification is passed on only if one of its other attributes differs from the recorded value.
+ *
+ * @author com.kevinnovate
+ */
+final class ConfigurationListener implements PrintServiceAttributeListener {
+
+    private final Consumer<PrintService> onChange;
+    private final HashMap<PrintService, PrintServiceAttributeSet> known = new HashMap<>();  //watched services, guarded by this
+
+    /**
+     * Create a listener
+     * @param onChange called with the service, on the notifying thread, when a service's configuration changes
+     */
+    ConfigurationListener(Consumer<PrintService> onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Start listening to a print service, unless already listening to it. The first call for a service reads its
+     * attributes, which may take a round trip to the printer, so it should not be made while holding a lock.
+     * @param s the print service
+     */
+    void watch(PrintService s) {
+        synchronized (this) {
+            if (known.containsKey(s))
+                return;
+        }
+
+        PrintServiceAttributeSet configuration = PrintServiceWatcher.snapshot(s);
+        synchronized (this) {
+            if (known.putIfAbsent(s, configuration) != null)  //another thread started listening meanwhile
+                return;
+        }
+        s.addPrintServiceAttributeListener(this);
+    }
+
+    @Override
+    public void attributeUpdate(PrintServiceAttributeEvent e) {
+        PrintService s = e.getPrintService();
+        boolean changed = false;
+        synchronized (this) {
+            PrintServiceAttributeSet configuration = known.get(s);
+            if (configuration == null)
+                return;
+
+            for (Attribute a : e.getAttributes().toArray()) {
+                if (PrintServiceWatcher.VOLATILE.contains(a.getCategory()))
+                    continue;
+                if (!a.equals(configuration.get(a.getCategory()))) {
+                    configuration.add(a);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed)
+            onChange.accept(s);
+    }
+
+}
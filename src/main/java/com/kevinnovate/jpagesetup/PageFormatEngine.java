@@ -0,0 +1,242 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+
+/**
+ * The page geometry logic of the PageSetupDialog, without any Swing dependency, so that it can be used in headless
+ * applications (java.awt.headless=true).
+ *
+ * The dialog presents a page as the user sees it: the width, height and margins are relative to the chosen orientation.
+ * A PageFormat instead stores its Paper in portrait coordinates. This class converts between the two, and checks a
+ * PageFormat against the result of validating it for a printer.
+ *
+ * All dimensions are in PageFormat units (1/72th of an inch).  The methods are stateless and thread-safe. Methods that
+ * fill a caller-supplied Paper or array do not allocate.
+ *
+ * @author com.kevinnovate
+ */
+public final class PageFormatEngine {
+
+    /**
+     * Index of the page width in a values array
+     */
+    public static final int WIDTH = 0;
+    /**
+     * Index of the page height in a values array
+     */
+    public static final int HEIGHT = 1;
+    /**
+     * Index of the left margin in a values array
+     */
+    public static final int LEFT = 2;
+    /**
+     * Index of the top margin in a values array
+     */
+    public static final int TOP = 3;
+    /**
+     * Index of the right margin in a values array
+     */
+    public static final int RIGHT = 4;
+    /**
+     * Index of the bottom margin in a values array
+     */
+    public static final int BOTTOM = 5;
+    /**
+     * Length of a values array
+     */
+    public static final int VALUE_COUNT = 6;
+
+    /**
+     * The default tolerance when comparing dimensions. Validated PageFormat dimensions may be slightly different due to rounding.
+     */
+    public static final double DEFAULT_TOLERANCE = 0.1;
+
+    /**
+     * The outcome of checking a PageFormat against its validated version
+     */
+    public enum Status {
+        /** The PageFormat is usable unchanged */
+        VALID,
+        /** Validation changed the paper size or orientation */
+        SIZE_CHANGED,
+        /** Validation changed the imageable area */
+        MARGINS_CHANGED,
+        /** The margins leave no printable area */
+        NO_PRINTABLE_AREA
+    }
+
+    private PageFormatEngine() {}
+
+    /**
+     * Compare dimensions and consider them equal if their difference is less than the tolerance.
+     * @param a the first dimension
+     * @param b the second dimension
+     * @param tolerance the largest difference considered equal
+     * @return true if "equal" enough, false otherwise
+     */
+    public static boolean compareDimensions(double a, double b, double tolerance) {
+        return Math.abs(a - b) < tolerance;
+    }
+
+    /**
+     * Create a PageFormat from orientation-relative dimensions
+     * @param orientation one of PageFormat.PORTRAIT, LANDSCAPE, or REVERSE_LANDSCAPE
+     * @param width the page width as seen in the orientation
+     * @param height the page height as seen in the orientation
+     * @param left the left margin as seen in the orientation
+     * @param top the top margin as seen in the orientation
+     * @param right the right margin as seen in the orientation
+     * @param bottom the bottom margin as seen in the orientation
+     * @return the new PageFormat
+     */
+    public static PageFormat create(int orientation, double width, double height, double left, double top, double right, double bottom) {
+        PageFormat fmt = new PageFormat();
+        fmt.setOrientation(orientation);
+
+        Paper p = new Paper();
+        setPaper(p, orientation, width, height, left, top, right, bottom);
+        fmt.setPaper(p);
+        return fmt;
+    }
+
+    /**
+     * Create a PageFormat from a values array
+     * @param orientation one of PageFormat.PORTRAIT, LANDSCAPE, or REVERSE_LANDSCAPE
+     * @param values the orientation-relative dimensions, indexed by WIDTH, HEIGHT, LEFT, TOP, RIGHT and BOTTOM
+     * @return the new PageFormat
+     */
+    public static PageFormat create(int orientation, double[] values) {
+        return create(orientation, values[WIDTH], values[HEIGHT], values[LEFT], values[TOP], values[RIGHT], values[BOTTOM]);
+    }
+
+    /**
+     * Set the size and imageable area of a Paper, rotating orientation-relative dimensions into the portrait coordinates of the Paper
+     * @param p the paper to set
+     * @param orientation one of PageFormat.PORTRAIT, LANDSCAPE, or REVERSE_LANDSCAPE
+     * @param width the page width as seen in the orientation
+     * @param height the page height as seen in the orientation
+     * @param left the left margin as seen in the orientation
+     * @param top the top margin as seen in the orientation
+     * @param right the right margin as seen in the orientation
+     * @param bottom the bottom margin as seen in the orientation
+     */
+    public static void setPaper(Paper p, int orientation, double width, double height, double left, double top, double right, double bottom) {
+
+        switch (orientation) {
+            case PageFormat.PORTRAIT:
+                p.setSize(width, height);
+                p.setImageableArea(left, top, width - (left + right), height - (top + bottom));
+                break;
+            case PageFormat.LANDSCAPE:
+                p.setSize(height, width);
+                p.setImageableArea(top, right, height - (top + bottom), width - (left + right));  //rotate counter-clockwise for Landscape
+                break;
+            case PageFormat.REVERSE_LANDSCAPE:
+                p.setSize(height, width);
+                p.setImageableArea(bottom, left, height - (top + bottom), width - (left + right));  //rotate clockwise for Rev Landscape
+                break;
+            default:
+                throw new IllegalArgumentException("Unhandled format");
+        }
+    }
+
+    /**
+     * Get the orientation-relative dimensions of a PageFormat
+     * @param format the format
+     * @param values filled with the dimensions, indexed by WIDTH, HEIGHT, LEFT, TOP, RIGHT and BOTTOM
+     */
+    public static void getValues(PageFormat format, double[] values) {
+        values[WIDTH] = format.getWidth();
+        values[HEIGHT] = format.getHeight();
+        values[LEFT] = format.getImageableX();
+        values[TOP] = format.getImageableY();
+        values[RIGHT] = format.getWidth() - (format.getImageableX() + format.getImageableWidth());
+        values[BOTTOM] = format.getHeight() - (format.getImageableY() + format.getImageableHeight());
+    }
+
+    /**
+     * Change the orientation of a PageFormat, keeping the orientation-relative page and margin dimensions. A portrait
+     * page 8.5 wide and 11 high rotated to landscape becomes 11 wide and 8.5 high.
+     * @param format the format, which is not modified
+     * @param orientation the new orientation
+     * @return a new PageFormat in the new orientation
+     */
+    public static PageFormat rotate(PageFormat format, int orientation) {
+        double width = format.getWidth();
+        double height = format.getHeight();
+        double left = format.getImageableX();
+        double top = format.getImageableY();
+        double right = width - (left + format.getImageableWidth());
+        double bottom = height - (top + format.getImageableHeight());
+
+        boolean flip = (format.getOrientation() == PageFormat.PORTRAIT) != (orientation == PageFormat.PORTRAIT);
+        if (flip)
+            return create(orientation, height, width, left, top, right, bottom);
+        else
+            return create(orientation, width, height, left, top, right, bottom);
+    }
+
+    /**
+     * Check whether two PageFormats have the same orientation and paper size, within the tolerance
+     * @param a the first format
+     * @param b the second format
+     * @param tolerance the largest difference considered equal
+     * @return true if the sizes match
+     */
+    public static boolean sameSize(PageFormat a, PageFormat b, double tolerance) {
+        return a.getOrientation() == b.getOrientation() &&
+               compareDimensions(a.getWidth(), b.getWidth(), tolerance) &&
+               compareDimensions(a.getHeight(), b.getHeight(), tolerance);
+    }
+
+    /**
+     * Check whether two PageFormats have the same imageable area, within the tolerance
+     * @param a the first format
+     * @param b the second format
+     * @param tolerance the largest difference considered equal
+     * @return true if the imageable areas match
+     */
+    public static boolean sameImageableArea(PageFormat a, PageFormat b, double tolerance) {
+        return compareDimensions(a.getImageableX(), b.getImageableX(), tolerance) &&
+               compareDimensions(a.getImageableY(), b.getImageableY(), tolerance) &&
+               compareDimensions(a.getImageableWidth(), b.getImageableWidth(), tolerance) &&
+               compareDimensions(a.getImageableHeight(), b.getImageableHeight(), tolerance);
+    }
+
+    /**
+     * Check a PageFormat against the result of validating it for a printer, using the default tolerance
+     * @param format the requested format
+     * @param validated the format validated for a printer, or null if no printer is selected
+     * @return the status of the requested format
+     */
+    public static Status check(PageFormat format, PageFormat validated) {
+        return check(format, validated, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Check a PageFormat against the result of validating it for a printer. The format is usable only if validation left it
+     * unchanged and it has a printable area.
+     * @param format the requested format
+     * @param validated the format validated for a printer, or null if no printer is selected
+     * @param tolerance the largest difference considered equal
+     * @return the status of the requested format
+     */
+    public static Status check(PageFormat format, PageFormat validated, double tolerance) {
+
+        if (validated != null) {
+            if (!sameSize(validated, format, tolerance))
+                return Status.SIZE_CHANGED;
+
+            if (!sameImageableArea(validated, format, tolerance))
+                return Status.MARGINS_CHANGED;
+        }
+
+        if (format.getImageableWidth() <= 0 || format.getImageableHeight() <= 0)
+            return Status.NO_PRINTABLE_AREA;
+
+        return Status.VALID;
+    }
+
+}
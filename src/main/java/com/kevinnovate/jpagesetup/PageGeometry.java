@@ -0,0 +1,172 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+
+/**
+ * The geometry of a page in fixed point: its orientation, size and margins as whole numbers of 1/914400ths of an inch.
+ * An inch, a millimeter and a point are all whole numbers of these units, so values entered in inches, points, picas,
+ * millimeters or centimeters round to exactly the fixed point value of what was entered, and geometries of such values
+ * compare and hash without tolerances. Other units, such as Didot points, ciceros and pixels, are not whole numbers of
+ * fixed point units, and their values are rounded to the nearest unit.
+ *
+ * As in the PageSetupDialog and PageFormatEngine, the width, height and margins are relative to the orientation. A
+ * geometry captured from a PageFormat rounds each dimension once, to the nearest unit. Instances are immutable.
+ *
+ * @author com.kevinnovate
+ */
+public final class PageGeometry {
+
+    /**
+     * The number of fixed point units in an inch
+     */
+    public static final long UNITS_PER_INCH = 914400;
+    /**
+     * The number of fixed point units in a millimeter
+     */
+    public static final long UNITS_PER_MM = 36000;
+    /**
+     * The number of fixed point units in a point, the PageFormat unit
+     */
+    public static final long UNITS_PER_POINT = 12700;
+
+    private final int orientation;
+    private final long[] values = new long[PageFormatEngine.VALUE_COUNT];
+    private final int hash;
+
+    /**
+     * Capture the geometry of a format
+     * @param f the format, which is not retained
+     */
+    public PageGeometry(PageFormat f) {
+        orientation = f.getOrientation();
+        double[] v = new double[PageFormatEngine.VALUE_COUNT];
+        PageFormatEngine.getValues(f, v);
+        for (int i = 0; i < v.length; i++)
+            values[i] = toFixed(v[i]);
+        hash = computeHash();
+    }
+
+    /**
+     * Create a geometry from fixed point values
+     * @param orientation the PageFormat orientation
+     * @param width the width, relative to the orientation
+     * @param height the height, relative to the orientation
+     * @param left the left margin, relative to the orientation
+     * @param top the top margin, relative to the orientation
+     * @param right the right margin, relative to the orientation
+     * @param bottom the bottom margin, relative to the orientation
+     */
+    public PageGeometry(int orientation, long width, long height, long left, long top, long right, long bottom) {
+        this.orientation = orientation;
+        values[PageFormatEngine.WIDTH] = width;
+        values[PageFormatEngine.HEIGHT] = height;
+        values[PageFormatEngine.LEFT] = left;
+        values[PageFormatEngine.TOP] = top;
+        values[PageFormatEngine.RIGHT] = right;
+        values[PageFormatEngine.BOTTOM] = bottom;
+        hash = computeHash();
+    }
+
+    private int computeHash() {
+        int h = orientation;
+        for (long v : values)
+            h = 31 * h + Long.hashCode(v);
+        return h;
+    }
+
+    /**
+     * Convert PageFormat units to fixed point units, rounding to the nearest unit
+     * @param points the value in PageFormat units
+     * @return the value in fixed point units
+     */
+    public static long toFixed(double points) {
+        return Math.round(points * UNITS_PER_POINT);
+    }
+
+    /**
+     * Convert fixed point units to PageFormat units
+     * @param units the value in fixed point units
+     * @return the value in PageFormat units
+     */
+    public static double toPoints(long units) {
+        return units / (double)UNITS_PER_POINT;
+    }
+
+    public int getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * Get a dimension
+     * @param index one of the PageFormatEngine value indexes, WIDTH through BOTTOM
+     * @return the dimension in fixed point units
+     */
+    public long get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Create a PageFormat with this geometry
+     * @return a new PageFormat
+     */
+    public PageFormat toPageFormat() {
+        return PageFormatEngine.create(orientation, toPoints(values[0]), toPoints(values[1]), toPoints(values[2]),
+                                       toPoints(values[3]), toPoints(values[4]), toPoints(values[5]));
+    }
+
+    /**
+     * Check whether another geometry has exactly the same orientation and size
+     * @param g the other geometry
+     * @return true if the sizes are equal
+     */
+    public boolean sameSize(PageGeometry g) {
+        return orientation == g.orientation &&
+               values[PageFormatEngine.WIDTH] == g.values[PageFormatEngine.WIDTH] &&
+               values[PageFormatEngine.HEIGHT] == g.values[PageFormatEngine.HEIGHT];
+    }
+
+    /**
+     * Check whether another geometry has exactly the same margins
+     * @param g the other geometry
+     * @return true if the margins are equal
+     */
+    public boolean sameMargins(PageGeometry g) {
+        return values[PageFormatEngine.LEFT] == g.values[PageFormatEngine.LEFT] &&
+               values[PageFormatEngine.TOP] == g.values[PageFormatEngine.TOP] &&
+               values[PageFormatEngine.RIGHT] == g.values[PageFormatEngine.RIGHT] &&
+               values[PageFormatEngine.BOTTOM] == g.values[PageFormatEngine.BOTTOM];
+    }
+
+    /**
+     * Check whether the margins leave a printable area
+     * @return true if the imageable width and height are positive
+     */
+    public boolean hasPrintableArea() {
+        return values[PageFormatEngine.WIDTH] - values[PageFormatEngine.LEFT] - values[PageFormatEngine.RIGHT] > 0 &&
+               values[PageFormatEngine.HEIGHT] - values[PageFormatEngine.TOP] - values[PageFormatEngine.BOTTOM] > 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof PageGeometry))
+            return false;
+
+        PageGeometry g = (PageGeometry)o;
+        return hash == g.hash && sameSize(g) && sameMargins(g);
+    }
+
+    @Override
+    public String toString() {
+        return "PageGeometry[" + orientation + ": " + values[0] + " x " + values[1] + ", margins " +
+               values[2] + " " + values[3] + " " + values[4] + " " + values[5] + "]";
+    }
+
+}
@@ -1,26 +1,132 @@
-
 package com.kevinnovate.jpagesetup;
 
+import java.nio.DoubleBuffer;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * This enum defines the possible measurement units for the PageSetupDialog. The enum has methods to convert
- * to and from the PageFormat unit (which is 1/72th of an inch).
+ * This class defines the measurement units for the PageSetupDialog. A unit is a descriptor with its scale, the precision
+ * values are rounded to, the spinner increment and the display format all computed once, and it has methods to convert
+ * to and from the PageFormat unit (which is 1/72th of an inch). Values are formatted by a UnitFormatter, cached per locale.
+ * 
+ * The available units are kept in a registry, from which the PageSetupDialog fills its unit selection. The registry
+ * holds inches, millimeters, centimeters, points, picas, Didot points, ciceros and pixels at 96 dpi, and applications
+ * can register their own, such as pixels at another resolution.
  * 
+ * The bulk conversions convert ranges of arrays or buffers without allocating. Their loops are plain element-wise
+ * arithmetic with the bounds checked up front, which the JIT can unroll and vectorize.
  * 
  * @author com.kevinnovate
  */
-enum PageMeasureUnit {
+public final class PageMeasureUnit {
     
-    IN("inch", 72.0), 
-    MM("millimeter", 72.0 / 25.4), 
-    PT("point", 1.0);
+    private static final Object registryLock = new Object();
+    private static volatile PageMeasureUnit[] registry = new PageMeasureUnit[0];  //copy on write, in registration order
+
+    public static final PageMeasureUnit IN = register(new PageMeasureUnit("in", "inch", 72.0, 2, 0.1));
+    public static final PageMeasureUnit MM = register(new PageMeasureUnit("mm", "millimeter", 72.0 / 25.4, 1, 1));
+    public static final PageMeasureUnit CM = register(new PageMeasureUnit("cm", "centimeter", 72.0 / 2.54, 2, 0.1));
+    public static final PageMeasureUnit PT = register(new PageMeasureUnit("pt", "point", 1.0, 0, 1));
+    public static final PageMeasureUnit PC = register(new PageMeasureUnit("pc", "pica", 12.0, 1, 1));
+    public static final PageMeasureUnit DD = register(new PageMeasureUnit("dd", "Didot point", 72.0 / 25.4 * 0.376065, 1, 1));  //the traditional (Fournier) Didot point of 0.376065 mm, not the metric 0.375 mm
+    public static final PageMeasureUnit CC = register(new PageMeasureUnit("cc", "cicero", 12.0 * 72.0 / 25.4 * 0.376065, 2, 0.1));
+    public static final PageMeasureUnit PX = register(pixels(96));
     
     
+    private final String abbreviation;  //the unit abbreviation, which identifies it in the registry
     private final String fullName;  //the full unit name
     private final double scale;     //scale factor for converting to/from PageFormat units
+    private final double precision; //converted values are rounded to 1/precision units
+    private final Double increment; //the spinner step
+    private final String pattern;   //the DecimalFormat pattern showing the precision
+    private final ConcurrentHashMap<Locale, UnitFormatter> formatters = new ConcurrentHashMap<>(4);
+    private final double fixedUnits;  //PageGeometry fixed point units per unit
+    private final long fixedQuantum;  //fixed point units per rounding step, 0 if not a whole number
+
+    /**
+     * Create a unit. Register it to offer it in the PageSetupDialog.
+     * @param abbr the abbreviation, shown after dimensions
+     * @param name the full name, shown in the unit selection
+     * @param pointsPerUnit the size of the unit in PageFormat units
+     * @param decimals the number of decimals values in the unit are rounded to
+     * @param increment the spinner step, in the unit
+     */
+    public PageMeasureUnit(String abbr, String name, double pointsPerUnit, int decimals, double increment) {
+        if (pointsPerUnit <= 0 || decimals < 0 || decimals > 6 || increment <= 0)
+            throw new IllegalArgumentException("Invalid unit " + abbr);
+
+        abbreviation = abbr;
+        fullName = name;
+        scale = pointsPerUnit;
+        precision = Math.pow(10, decimals);
+        this.increment = increment;
+
+        StringBuilder sb = new StringBuilder("0");
+        for (int i = 0; i < decimals; i++)
+            sb.append(i == 0 ? ".#" : "#");
+        pattern = sb.toString();
+
+        double units = pointsPerUnit * PageGeometry.UNITS_PER_POINT;
+        fixedUnits = Math.abs(units - Math.rint(units)) < 1e-6 ? Math.rint(units) : units;  //exact for IN, MM, PT and kin
+        double quantum = fixedUnits / precision;
+        fixedQuantum = Math.abs(quantum - Math.rint(quantum)) < 1e-6 ? (long)Math.rint(quantum) : 0;
+    }
+
+    /**
+     * Create a pixel unit for a resolution. Register it to replace the 96 dpi pixel unit in the PageSetupDialog.
+     * @param dpi the resolution, in pixels per inch
+     * @return the unit, abbreviated "px"
+     */
+    public static PageMeasureUnit pixels(double dpi) {
+        return new PageMeasureUnit("px", "pixel (" + new DecimalFormat("0.##").format(dpi) + " dpi)", 72.0 / dpi, 0, 1);
+    }
+
+    /**
+     * Add a unit to the registry, replacing any unit with the same abbreviation
+     * @param u the unit
+     * @return the unit
+     */
+    public static PageMeasureUnit register(PageMeasureUnit u) {
+        synchronized (registryLock) {
+            PageMeasureUnit[] units = registry;
+            for (int i = 0; i < units.length; i++) {
+                if (units[i].abbreviation.equals(u.abbreviation)) {
+                    units = units.clone();
+                    units[i] = u;
+                    registry = units;
+                    return u;
+                }
+            }
+            units = Arrays.copyOf(units, units.length + 1);
+            units[units.length - 1] = u;
+            registry = units;
+        }
+        return u;
+    }
+
+    /**
+     * Get the registered units
+     * @return the units, in registration order
+     */
+    public static PageMeasureUnit[] values() {
+        return registry.clone();
+    }
 
-    private PageMeasureUnit(String n, double s) {
-        fullName = n;
-        scale = s;
+    /**
+     * Find a registered unit by its abbreviation
+     * @param abbr the abbreviation, in any case
+     * @return the unit
+     * @throws IllegalArgumentException if no unit has the abbreviation
+     */
+    public static PageMeasureUnit valueOf(String abbr) {
+        String a = abbr.trim().toLowerCase(Locale.ROOT);
+        for (PageMeasureUnit u : registry) {
+            if (u.abbreviation.equals(a))
+                return u;
+        }
+        throw new IllegalArgumentException("No unit " + abbr);
     }
 
     @Override
@@ -29,11 +135,11 @@ enum PageMeasureUnit {
     }
 
     /**
-     * Returns the abbreviated two-character unit
-     * @return 
+     * Returns the abbreviated unit
+     * @return the abbreviation
      */
-    String abbr() {
-        return this.name().toLowerCase();
+    public String abbr() {
+        return abbreviation;
     }
 
     /**
@@ -51,43 +157,164 @@ enum PageMeasureUnit {
      * @return value converted to this PageMeasureUnit units
      */
     double fromPFUnits(double val) {
-        
-        switch (this) {
-            case IN:
-                return Math.round(100 * val / scale) / 100.0;  //round to 100ths
-            case MM:
-                return Math.round(10 * val / scale) / 10.0;  //round to 10ths
-            case PT:
-                return Math.round(val / scale);  //round to integers
-            default:
-                throw new RuntimeException("Unknown unit");
+        return Math.round(precision * val / scale) / precision;  //round to 100ths of inches, 10ths of mm, whole points
+    }
+
+    /**
+     * Convert to PageGeometry fixed point units. For IN, PT, PC, MM and CM, values with no more decimals than the unit
+     * displays convert exactly. Units that are not a whole number of fixed point units, such as DD, CC and PX, round.
+     * @param val the value to convert
+     * @return value converted to fixed point units, rounded to the nearest unit
+     */
+    long toFixed(double val) {
+        return Math.round(val * fixedUnits);
+    }
+
+    /**
+     * Convert from PageGeometry fixed point units, rounded as fromPFUnits(double) rounds. For units whose rounding step is a
+     * whole number of fixed point units, such as IN, MM and PT, the rounding is exact integer arithmetic.
+     * @param val the value in fixed point units
+     * @return value converted to this PageMeasureUnit units
+     */
+    double fromFixed(long val) {
+        if (fixedQuantum == 0)
+            return Math.floor(val * precision / fixedUnits + 0.5) / precision;
+        return Math.floorDiv(val + fixedQuantum / 2, fixedQuantum) / precision;
+    }
+
+    /**
+     * Convert a range of values to PageFormat units. The source and destination may be the same array, to convert in place,
+     * but then the ranges must either start at the same offset or not overlap.
+     * @param src the values to convert
+     * @param srcOffset the position of the first value to convert
+     * @param dst receives the converted values
+     * @param dstOffset the position for the first converted value
+     * @param length the number of values to convert
+     * @throws IllegalArgumentException if the ranges overlap at different offsets of the same array
+     */
+    public void toPFUnits(double[] src, int srcOffset, double[] dst, int dstOffset, int length) {
+        checkRange(src.length, srcOffset, dst.length, dstOffset, length);
+        checkOverlap(src, srcOffset, dst, dstOffset, length);
+
+        double s = scale;
+        for (int i = 0; i < length; i++)
+            dst[dstOffset + i] = src[srcOffset + i] * s;
+    }
+
+    /**
+     * Convert a range of values from PageFormat units, rounded as fromPFUnits(double) rounds. The source and destination
+     * may be the same array, to convert in place, but then the ranges must either start at the same offset or not overlap.
+     * Values are rounded half up with Math.floor(), which differs from Math.round() only for NaN and for values too large
+     * to have a fraction.
+     * @param src the values to convert
+     * @param srcOffset the position of the first value to convert
+     * @param dst receives the converted values
+     * @param dstOffset the position for the first converted value
+     * @param length the number of values to convert
+     * @throws IllegalArgumentException if the ranges overlap at different offsets of the same array
+     */
+    public void fromPFUnits(double[] src, int srcOffset, double[] dst, int dstOffset, int length) {
+        checkRange(src.length, srcOffset, dst.length, dstOffset, length);
+        checkOverlap(src, srcOffset, dst, dstOffset, length);
+
+        double s = scale;
+        double p = precision;
+        for (int i = 0; i < length; i++)
+            dst[dstOffset + i] = Math.floor(p * src[srcOffset + i] / s + 0.5) / p;
+    }
+
+    /**
+     * Convert a range of a buffer to PageFormat units. Heap buffers are converted by the array method. The positions and
+     * limits of the buffers are not changed. As for arrays, ranges of the same buffer must start at the same index or not
+     * overlap. Different direct buffers must not share memory.
+     * @param src the values to convert
+     * @param srcIndex the index of the first value to convert
+     * @param dst receives the converted values
+     * @param dstIndex the index for the first converted value
+     * @param length the number of values to convert
+     * @throws IllegalArgumentException if the ranges overlap at different indexes of the same buffer or array
+     */
+    public void toPFUnits(DoubleBuffer src, int srcIndex, DoubleBuffer dst, int dstIndex, int length) {
+        checkRange(src.limit(), srcIndex, dst.limit(), dstIndex, length);
+        checkOverlap(src, srcIndex, dst, dstIndex, length);
+
+        if (src.hasArray() && dst.hasArray()) {
+            toPFUnits(src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex, length);
+            return;
         }
-        
+
+        double s = scale;
+        for (int i = 0; i < length; i++)
+            dst.put(dstIndex + i, src.get(srcIndex + i) * s);
     }
 
-    Number getIncrementSize() {
-        switch (this) {
-            case IN:
-                return 0.1d;
-            case MM:
-            case PT:
-                return 1d;
-            default:
-                throw new RuntimeException("Unknown unit");
+    /**
+     * Convert a range of a buffer from PageFormat units, rounded as fromPFUnits(double[], ...) rounds. Heap buffers are
+     * converted by the array method. The positions and limits of the buffers are not changed. As for arrays, ranges of the
+     * same buffer must start at the same index or not overlap. Different direct buffers must not share memory.
+     * @param src the values to convert
+     * @param srcIndex the index of the first value to convert
+     * @param dst receives the converted values
+     * @param dstIndex the index for the first converted value
+     * @param length the number of values to convert
+     * @throws IllegalArgumentException if the ranges overlap at different indexes of the same buffer or array
+     */
+    public void fromPFUnits(DoubleBuffer src, int srcIndex, DoubleBuffer dst, int dstIndex, int length) {
+        checkRange(src.limit(), srcIndex, dst.limit(), dstIndex, length);
+        checkOverlap(src, srcIndex, dst, dstIndex, length);
+
+        if (src.hasArray() && dst.hasArray()) {
+            fromPFUnits(src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex, length);
+            return;
         }
+
+        double s = scale;
+        double p = precision;
+        for (int i = 0; i < length; i++)
+            dst.put(dstIndex + i, Math.floor(p * src.get(srcIndex + i) / s + 0.5) / p);
+    }
+
+    private static void checkRange(int srcLength, int srcOffset, int dstLength, int dstOffset, int length) {
+        if (length < 0 || srcOffset < 0 || dstOffset < 0 || srcOffset > srcLength - length || dstOffset > dstLength - length)
+            throw new IndexOutOfBoundsException("Range of " + length + " at " + srcOffset + " and " + dstOffset + 
+                                                " exceeds lengths " + srcLength + " and " + dstLength);
+    }
+
+    /**
+     * The loops convert forward, so a destination range starting inside the source range would overwrite values before
+     * they are read
+     */
+    private static void checkOverlap(Object src, int srcOffset, Object dst, int dstOffset, int length) {
+        if (src == dst && srcOffset != dstOffset && srcOffset < dstOffset + length && dstOffset < srcOffset + length)
+            throw new IllegalArgumentException("Range of " + length + " at " + srcOffset + " overlaps the one at " + dstOffset);
+    }
+
+    Number getIncrementSize() {
+        return increment;
     }
     
     String getNumberFormat() {
-        switch (this) {
-            case IN:
-                return "0.##";
-            case MM:
-                return "0.#";
-            case PT:
-                return "0";
-            default:
-                throw new RuntimeException("Unknown unit");
-        }
+        return pattern;
+    }
+
+    /**
+     * Get the formatter for this unit in the default format locale
+     * @return the cached formatter
+     */
+    public UnitFormatter getFormatter() {
+        return getFormatter(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Get the formatter for this unit in a locale
+     * @param locale the locale, which determines the decimal separator
+     * @return the cached formatter
+     */
+    public UnitFormatter getFormatter(Locale locale) {
+        UnitFormatter f = formatters.get(locale);
+        if (f == null)
+            f = formatters.computeIfAbsent(locale, (Locale l) -> new UnitFormatter(this, l));
+        return f;
     }
 
    
@@ -1,16 +1,19 @@
 
 package com.kevinnovate.jpagesetup;
 
-import java.awt.Component;
+import java.awt.Cursor;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.print.PageFormat;
-import java.awt.print.Paper;
-import java.awt.print.PrinterException;
-import java.awt.print.PrinterJob;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import javax.print.PrintService;
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
@@ -21,8 +24,12 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JSpinner;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 
 /**
  * This is the primary class for jPageSetup.  This class extends the JDialog class and provides a native Java replacement for the 
@@ -70,61 +77,75 @@ public class PageSetupDialog extends javax.swing.JDialog {
         
     }
  
-    /**
-     * Compare dimensions and consider them equal if their difference is less than .1. This is used to 
-     * check validated PageFormat dimensions, which may be slightly different due to rounding.
-     * @param a the first dimension
-     * @param b the second dimension
-     * @return true if "equal" enough, false otherwise
-     */
-    private static boolean compareDimensions(double a, double b) {
-        return Math.abs(a - b) < 0.1;
-    }
-    
-    
     private static ImageIcon landscapeIcon = new ImageIcon(PageSetupDialog.class.getResource("/icons/landscape_orientation.png"));
     private static ImageIcon portraitIcon = new ImageIcon(PageSetupDialog.class.getResource("/icons/portrait_orientation.png"));
     private static ImageIcon revLandscapeIcon = new ImageIcon(PageSetupDialog.class.getResource("/icons/rev_landscape_orientation.png"));
     
-    private PageMeasureUnit unit = null;
+    private final PageValueSpinners pageValues;  //the page in PageFormat units, shown by the spinners in the selected unit
     private PageFormat returnFormat = null;
+    private PageFormat defaultFormat = null;  //the default printer's validated format, once needed
+    private boolean reusable = false;
     private final Icon errorIcon;
-    private final JPopupMenu autoPaperMenu;
+    private JPopupMenu autoPaperMenu;   //built when the autoPaperSize button is first pressed
+    private List<AutoPageType> autoPaperMenuTypes;  //the registry snapshot autoPaperMenu was built from
+    private final JProgressBar validationProgressBar;
+    private CompletableFuture<PageFormat> pendingValidation;  //the current background validation, only accessed on the Swing thread
+    private PrintServiceEntry selectedPrinter;
+    
+    private int currentOrientation;
     
     /**
-     * From the provided PageFormat, validate against the limitations of the supplied printer. 
-     * @param s the printer service to validate against.  Use null for the default printer.
-     * @param f the page format to validate. Use null for the default PageFormat for the supplied printer
-     * @return a validated, possibly changed PageFormat object that meets the limitations of the printer
+     * Receives printers from the background discovery and adds them to the printer combo box on the Swing thread
      */
-    private static PageFormat validateForPrinter(PrintService s, PageFormat f)  {
-            
-        PrinterJob job = PrinterJob.getPrinterJob(); 
-        if (s != null) {
-            try {
-                job.setPrintService(s);  //try and set the requested printer
-            } catch (PrinterException ex) {  //if that doesn't work, use default print service
-            }  
+    private final PrintServiceDiscovery.Listener discoveryListener = new PrintServiceDiscovery.Listener() {
+        @Override
+        public void serviceFound(PrintService s) {
+            SwingUtilities.invokeLater(() -> addPrinterEntry(s));
         }
 
-        if (f == null)
-            f = job.defaultPage();
-         
-        //Get the default page format for printer, but remove margins. Seems to be a bug with the imageable area.
-        //instead, validate the format against the printer to get the minimum margins
-        Paper p = new Paper();  
-        p.setImageableArea(0, 0, f.getWidth(), f.getHeight());    
-        f.setPaper(p);
-        return job.validatePage(f);
-    }
+        @Override
+        public void discoveryFinished(PrintService[] all) {
+            SwingUtilities.invokeLater(() -> {
+                for (PrintService s : all)
+                    addPrinterEntry(s);
+            });
+        }
+    };
     
-    private int currentOrientation;
+    /**
+     * Receives printer changes from the PrintServiceWatcher and applies them to the printer combo box on the Swing thread
+     */
+    private final PrintServiceWatcher.Listener watcherListener = new PrintServiceWatcher.Listener() {
+        @Override
+        public void serviceAdded(PrintService s) {
+            SwingUtilities.invokeLater(() -> addPrinterEntry(s));
+        }
+
+        @Override
+        public void serviceRemoved(PrintService s) {
+            SwingUtilities.invokeLater(() -> removePrinterEntry(s));
+        }
+
+        @Override
+        public void serviceChanged(PrintService s) {
+            //the entry is unchanged, and the watcher has already discarded the cached validations for the printer
+        }
+    };
+    
+    /**
+     * Start discovering the available printers in the background, so that the first PageSetupDialog opens with a populated
+     * printer list.  Applications may call this at startup.  Discovered printers are cached for all dialogs.
+     */
+    public static void prefetchPrintServices() {
+        PrintServiceDiscovery.discover(null);
+    }
             
     /**
      * Create the PageSetupDialog
      * @param parent the parent frame
      * @param modal true for modal
-     * @param fmt the PageFormat to initialize with. If null, the format will be initialized with the default printer format
+     * @param fmt the PageFormat to initialize with. If null, the format will be initialized with the default printer format,
+     * which is validated in the background
      * @param errorIcon the custom icon to show on error message popups (JOptionPanes), null to use default Java icon
      * @param dialogIconImage the icon to show on the frame title bar, null for default Java icon
      */
@@ -135,82 +156,66 @@ public class PageSetupDialog extends javax.swing.JDialog {
         this.errorIcon = errorIcon;
         
         //Set the default unit
+        PageMeasureUnit unit;
         String defaultCountry = Locale.getDefault().getCountry();
         if (defaultCountry != null && (defaultCountry.equals(Locale.US.getCountry()) || defaultCountry.equals(Locale.CANADA.getCountry())))
             unit = PageMeasureUnit.IN;
         else
             unit = PageMeasureUnit.MM;
         
+        //The spinners edit the page values, each in the current unit
+        JSpinner[] valueSpinners = {widthSpinner, heightSpinner, leftMarginSpinner, topMarginSpinner, rightMarginSpinner, bottomMarginSpinner};
+        pageValues = new PageValueSpinners(valueSpinners, unit, getLocale());
         
         //Add all the units to the measurement Combo Box
         for (PageMeasureUnit u : PageMeasureUnit.values())
             measureUnitComboBox.addItem(u);     
         measureUnitComboBox.setSelectedItem(unit);  
 
-        //Create the Popupmenu that is created when pressing the autoPaperSize button with all the AutoPage entries
-        autoPaperMenu = new JPopupMenu();
-        HashMap<String, JMenu> categories = new HashMap<>();
-        for (AutoPageType p : AutoPageType.getAll()) {  //for all Paper types
-            
-            JMenu m = categories.get(p.getCategory());  
-            
-            //If the category does not exist yet, create it
-            if (m == null) {
-                m = new JMenu(p.getCategory());
-                categories.put(p.getCategory(), m);
-                autoPaperMenu.add(m);
-            }
-                
-            //Create the menu item for this Paper type
-            JMenuItem mi = new JMenuItem(p.toString());
-            
-            //When selected, set the width and height spinners based on the the type dimensions, taking into account the orientation
-            mi.addActionListener((ActionEvent e) -> {
-                
-                double w = unit.fromPFUnits(p.getWidth());
-                double h = unit.fromPFUnits(p.getHeight());
-                
-                if (w > h) 
-                    setFromOrientation(PageFormat.LANDSCAPE);       
-                else
-                    setFromOrientation(PageFormat.PORTRAIT); 
-
-                widthSpinner.setValue(w);
-                heightSpinner.setValue(h);
-                measureUnitComboBox.setSelectedItem(p.getUnit());  //set the unit based on the type's unit
-                    
-            });
-            mi.setToolTipText(p.getDimensionString());  //set the tooltip text to the type's dimension string
-            
-            //Add the new menu item to the Category menu
-            m.add(mi);
-        }
-        
-        
-        //If the user doesn't supply an initial PageFormat, create one for the default printer
-        if (fmt == null) 
-            fmt = validateForPrinter(null, null);
-        
         //Add a "Any Printer" 
         printerComboBox.addItem(new PrintServiceEntry(null));
         
-        //Populate the combo box with available printers
-        for (PrintService p : PrinterJob.lookupPrintServices())
-            printerComboBox.addItem(new PrintServiceEntry(p));
-        
-        //Setup all fields based on the PageFormat
-        initFromPageFormat(fmt);
+        //Populate the combo box with the cached printers, and stream in any others as the background discovery finds them
+        for (PrintService p : PrintServiceDiscovery.getCached())
+            addPrinterEntry(p);
+        PrintServiceDiscovery.discover(discoveryListener);
+        PrintServiceWatcher.getShared().addListener(watcherListener);
         
         if (dialogIconImage != null)
             setIconImage(dialogIconImage);
         
+        //Add a busy indicator shown while a background validation is running
+        validationProgressBar = new JProgressBar();
+        validationProgressBar.setIndeterminate(true);
+        validationProgressBar.setVisible(false);
+        java.awt.GridBagConstraints progressConstraints = new java.awt.GridBagConstraints();
+        progressConstraints.gridx = 4;
+        progressConstraints.gridy = 0;
+        progressConstraints.insets = new java.awt.Insets(0, 5, 0, 0);
+        autoPanel.add(validationProgressBar, progressConstraints);
+        
+        //Setup all fields based on the PageFormat. If the user doesn't supply one, use the default printer's, which is
+        //validated in the background so that opening the dialog never waits for the printer
+        if (fmt == null)
+            initFromDefaultFormat();
+        else
+            initFromPageFormat(fmt);
+        
         ActionMap am = sizePane.getActionMap();
         
         sizePane.getInputMap(JPanel.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "Escape");
         sizePane.getActionMap().put("Escape", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-               dispose();
+               close();
+            }
+        });
+        
+        //A pending validation must not complete the dialog after the user closes it from the title bar
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelValidation();
             }
         });
         
@@ -251,13 +256,8 @@ public class PageSetupDialog extends javax.swing.JDialog {
     private void initFromPageFormat(PageFormat format) {
         
         setFromOrientation(format.getOrientation());
-               
-        widthSpinner.setValue(unit.fromPFUnits(format.getWidth()));
-        heightSpinner.setValue(unit.fromPFUnits(format.getHeight()));
-        leftMarginSpinner.setValue(unit.fromPFUnits(format.getImageableX()));
-        topMarginSpinner.setValue(unit.fromPFUnits(format.getImageableY()));
-        rightMarginSpinner.setValue(unit.fromPFUnits(format.getWidth() - (format.getImageableX() + format.getImageableWidth())));
-        bottomMarginSpinner.setValue(unit.fromPFUnits(format.getHeight() - (format.getImageableY() + format.getImageableHeight())));
+        
+        pageValues.setFrom(format);
     }
     
     
@@ -275,43 +275,233 @@ public class PageSetupDialog extends javax.swing.JDialog {
         else
             orientation = PageFormat.REVERSE_LANDSCAPE;
    
-        //Get paper dimensions in PageFormat units
-        double width = unit.toPFUnits((double)widthSpinner.getValue());        
-        double height = unit.toPFUnits((double)heightSpinner.getValue());
-   
-        //Get all margin dimensions in PageFormat units
-        double left = unit.toPFUnits((double)leftMarginSpinner.getValue());
-        double top = unit.toPFUnits((double)topMarginSpinner.getValue());
-        double right = unit.toPFUnits((double)rightMarginSpinner.getValue());
-        double bottom = unit.toPFUnits((double)bottomMarginSpinner.getValue());
+        return pageValues.createPageFormat(orientation);
+    }
+    
+    
+    /**
+     * Get the Popupmenu that is shown when pressing the autoPaperSize button, with a submenu for each AutoPageType category.
+     * The menu is built on first use, and rebuilt if types were added since. The items of a category submenu are only 
+     * created when the submenu is first expanded.
+     * @return the menu
+     */
+    private JPopupMenu getAutoPaperMenu() {
+        
+        List<AutoPageType> types = AutoPageType.getAll();
+        if (autoPaperMenu != null && autoPaperMenuTypes == types)
+            return autoPaperMenu;
+        
+        autoPaperMenu = new JPopupMenu();
+        autoPaperMenuTypes = types;
+        
+        JMenuItem search = new JMenuItem("Search...");
+        search.setToolTipText("Find a paper size by name, category or dimensions");
+        search.addActionListener((ActionEvent e) -> new PaperTypePicker(this, this::setFromAutoPageType).setVisible(true));
+        autoPaperMenu.add(search);
+        autoPaperMenu.addSeparator();
+        
+        for (Map.Entry<String, List<AutoPageType>> c : AutoPageType.getCategories().entrySet()) {
+            
+            JMenu m = new JMenu(c.getKey());
+            m.addMenuListener(new MenuListener() {
+                @Override
+                public void menuSelected(MenuEvent e) {
+                    if (m.getItemCount() == 0) {  //first expansion, create the menu items for this category
+                        for (AutoPageType p : c.getValue())
+                            m.add(createAutoPaperMenuItem(p));
+                    }
+                }
 
+                @Override
+                public void menuDeselected(MenuEvent e) {}
 
-        PageFormat fmt = new PageFormat();
-        fmt.setOrientation(orientation);
-        
-        Paper p = new Paper();
+                @Override
+                public void menuCanceled(MenuEvent e) {}
+            });
+            autoPaperMenu.add(m);
+        }
+        return autoPaperMenu;
+    }
+    
+    /**
+     * Create the menu item for a Paper type
+     * @param p the type
+     * @return the menu item
+     */
+    private JMenuItem createAutoPaperMenuItem(AutoPageType p) {
         
-        switch (orientation) {
-            case PageFormat.PORTRAIT:
-                p.setSize(width, height);
-                p.setImageableArea(left, top, width - (left + right), height - (top + bottom));
-                break;
-            case PageFormat.LANDSCAPE:
-                p.setSize(height, width);
-                p.setImageableArea(top, right, height - (top + bottom), width - (left + right));  //rotate counter-clockwise for Landscape
-                break;
-            case PageFormat.REVERSE_LANDSCAPE:
-                p.setSize(height, width);
-                p.setImageableArea(bottom, left, height - (top + bottom), width - (left + right));  //rotate clockwise for Rev Landscape             
-                break;
-            default:
-                throw new RuntimeException("Unhandled format");       
+        JMenuItem mi = new JMenuItem(p.toString());
+
+        mi.addActionListener((ActionEvent e) -> setFromAutoPageType(p));
+        mi.setToolTipText(p.getDimensionString());  //set the tooltip text to the type's dimension string
+        return mi;
+    }
+    
+    /**
+     * Set the width and height spinners based on the the type dimensions, taking into account the orientation
+     * @param p the selected type
+     */
+    private void setFromAutoPageType(AutoPageType p) {
+
+        if (p.getWidth() > p.getHeight()) 
+            setFromOrientation(PageFormat.LANDSCAPE);       
+        else
+            setFromOrientation(PageFormat.PORTRAIT); 
+
+        pageValues.setSize(p.getWidth(), p.getHeight());
+        measureUnitComboBox.setSelectedItem(p.getUnit());  //set the unit based on the type's unit
+    }
+    
+    /**
+     * Add a printer to the printer combo box, unless it is already listed
+     * @param s the printer to add
+     */
+    private void addPrinterEntry(PrintService s) {
+        for (int i = 0; i < printerComboBox.getItemCount(); i++) {
+            if (s.equals(printerComboBox.getItemAt(i).getPrintService()))
+                return;
         }
+        printerComboBox.addItem(new PrintServiceEntry(s));
+    }
+    
+    /**
+     * Remove a printer from the printer combo box. If it is selected, "Any Printer" is selected instead.
+     * @param s the printer to remove
+     */
+    private void removePrinterEntry(PrintService s) {
+        for (int i = 1; i < printerComboBox.getItemCount(); i++) {  //the first entry is Any Printer
+            if (s.equals(printerComboBox.getItemAt(i).getPrintService())) {
+                if (printerComboBox.getSelectedIndex() == i)
+                    printerComboBox.setSelectedIndex(0);
+                printerComboBox.removeItemAt(i);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Run a background validation, cancelling any that is still pending. When the validation completes, the result is passed
+     * to the handler on the Swing thread, unless another validation has been started or cancelled in the meantime.
+     * @param validation the running validation
+     * @param handler receives the validated PageFormat
+     */
+    private void runValidation(CompletableFuture<PageFormat> validation, Consumer<PageFormat> handler) {
+        
+        cancelValidation();
+        pendingValidation = validation;
+        setValidating(true);
+        
+        validation.whenComplete((PageFormat fmt, Throwable ex) -> SwingUtilities.invokeLater(() -> {
             
-        fmt.setPaper(p);
-        return fmt;
+            if (pendingValidation != validation)  //stale, a newer validation replaced this one or it was cancelled
+                return;
+            
+            pendingValidation = null;
+            setValidating(false);
+            
+            if (ex == null)
+                handler.accept(fmt);
+            else {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                JOptionPane.showMessageDialog(this, cause.getMessage(), "Printer Error", JOptionPane.ERROR_MESSAGE, errorIcon);
+            }
+        }));
+    }
+    
+    /**
+     * Cancel the pending background validation, if any, so its result is never applied
+     */
+    private void cancelValidation() {
+        if (pendingValidation != null) {
+            pendingValidation.cancel(false);
+            pendingValidation = null;
+            setValidating(false);
+        }
+    }
+    
+    private void setValidating(boolean validating) {
+        validationProgressBar.setVisible(validating);
+        autoPanel.revalidate();
+        setCursor(validating ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+    
+    /**
+     * Set all fields from the default PageFormat of the default printer, which is validated once per dialog. Until the
+     * background validation completes, the fields show Java's default page as a provisional format.
+     */
+    private void initFromDefaultFormat() {
+        if (defaultFormat != null) {
+            initFromPageFormat((PageFormat)defaultFormat.clone());
+            return;
+        }
+        
+        initFromPageFormat(new PageFormat());
+        runValidation(PrinterValidator.defaultPageAsync(null), (PageFormat validated) -> {
+            defaultFormat = validated;
+            initFromPageFormat((PageFormat)validated.clone());
+        });
     }
     
+    /**
+     * Set whether the dialog can be shown again after it closes.  A reusable dialog is hidden rather than disposed when 
+     * the user closes it, and is prepared for the next use with reset().
+     * @param r true to make the dialog reusable
+     */
+    public void setReusable(boolean r) {
+        reusable = r;
+        setDefaultCloseOperation(r ? javax.swing.WindowConstants.HIDE_ON_CLOSE : javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
+    }
+    
+    /**
+     * Check whether the dialog is hidden rather than disposed when closed
+     * @return true if the dialog is reusable
+     */
+    public boolean isReusable() {
+        return reusable;
+    }
+    
+    /**
+     * Prepare the dialog to be shown again, clearing the previous result and setting all fields from a new PageFormat. 
+     * Components, menus and the printer list are kept, so this is much cheaper than creating a new dialog. Call from the 
+     * Swing thread while the dialog is not visible.
+     * @param fmt the PageFormat to initialize with. If null, the format will be initialized with the default printer format,
+     * which is validated in the background
+     */
+    public void reset(PageFormat fmt) {
+        
+        cancelValidation();
+        returnFormat = null;
+        
+        if (fmt == null)
+            initFromDefaultFormat();
+        else
+            initFromPageFormat(fmt);
+        
+        //Pick up printers discovered since the dialog was created
+        for (PrintService p : PrintServiceDiscovery.getCached())
+            addPrinterEntry(p);
+        PrintServiceDiscovery.discover(discoveryListener);
+    }
+    
+    /**
+     * Close the dialog: hide it if reusable, otherwise dispose it
+     */
+    private void close() {
+        if (reusable) {
+            cancelValidation();
+            PrintServiceDiscovery.removeListener(discoveryListener);
+            setVisible(false);
+        } else
+            dispose();
+    }
+    
+    @Override
+    public void dispose() {
+        cancelValidation();
+        PrintServiceDiscovery.removeListener(discoveryListener);
+        PrintServiceWatcher.getShared().removeListener(watcherListener);
+        super.dispose();
+    }
     
     /**
      * Get the resultant PageFormat if the user pressed the OK button. 
@@ -687,16 +877,8 @@ public class PageSetupDialog extends javax.swing.JDialog {
         if (e.getPrintService() == null)  //Any printer - automatically valid
             return;
 
-        PrinterJob job = PrinterJob.getPrinterJob();  //default printer job
-        try {
-            
-            job.setPrintService(e.getPrintService());              //set job for selected printer         
-            PageFormat validated_fmt = job.validatePage(getPageFormatFromValues());  //validate the PageFormat created from the fields
-            initFromPageFormat(validated_fmt);  //set the fields on the Dialog from the validated format
-            
-        } catch (PrinterException ex) {  //Service cannot support
-            JOptionPane.showMessageDialog(this, ex.getMessage(), "Printer Error", JOptionPane.ERROR_MESSAGE, errorIcon);
-        }   
+        //Validate the PageFormat created from the fields, then set the fields on the Dialog from the validated format
+        runValidation(PrinterValidator.validateAsync(e.getPrintService(), getPageFormatFromValues()), this::initFromPageFormat);
 
     }//GEN-LAST:event_validateForPrinterButtonActionPerformed
 
@@ -704,49 +886,24 @@ public class PageSetupDialog extends javax.swing.JDialog {
      * Flip from portrait to landscape or vice versa
      */
     private void flipOrientation() {
-        double width = (double)widthSpinner.getValue();
-        double height = (double)heightSpinner.getValue();
-        widthSpinner.setValue(height);
-        heightSpinner.setValue(width);
+        pageValues.setSize(pageValues.get(PageFormatEngine.HEIGHT), pageValues.get(PageFormatEngine.WIDTH));
     }
     
             
-    /**
-     * Recursive function for each component on a JPanel, if component is a JSpinner, first convert to PF units using the old unit, 
-     * then convert back to unit values using the new unit.  If component is a sub JPanel, call recursively.
-     * @param parent the parent JPanel 
-     * @param oldUnit the original unit
-     * @param newUnit the new desired unit
-     */
-    private void updateJSpinnerForUnit(JPanel parent, PageMeasureUnit oldUnit, PageMeasureUnit newUnit) {
-        
-        for (Component c : parent.getComponents()) {
-            if (c instanceof JSpinner) {
-                
-                JSpinner s = (JSpinner)c;
-                double pfVal = oldUnit.toPFUnits((double)s.getValue());             
-                
-                s.setModel(new javax.swing.SpinnerNumberModel(0.0d, 0.0d, null, newUnit.getIncrementSize()));
-                s.setEditor(new JSpinner.NumberEditor(s, newUnit.getNumberFormat()));
-                s.setValue(newUnit.fromPFUnits(pfVal));
-                                                               
-            }
-            if (c instanceof JPanel)
-                updateJSpinnerForUnit((JPanel)c, oldUnit, newUnit);
-            
-        }
-        
-    }
-    
     private void measureUnitComboBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_measureUnitComboBoxItemStateChanged
 
-        PageMeasureUnit newUnit = (PageMeasureUnit)measureUnitComboBox.getSelectedItem(); 
-        updateJSpinnerForUnit(sizePane, unit, newUnit);  //update all fields for the new unit
-        unit = newUnit;  //set to new unit
+        if (evt.getStateChange() != java.awt.event.ItemEvent.SELECTED)
+            return;
+        
+        //The page values are kept in PageFormat units, so only their display changes, and switching back and forth
+        //between units never accumulates rounding
+        pageValues.setUnit((PageMeasureUnit)measureUnitComboBox.getSelectedItem());
+        sizePane.revalidate();
+        sizePane.repaint();
     }//GEN-LAST:event_measureUnitComboBoxItemStateChanged
 
     private void cancelButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelButtonActionPerformed
-        dispose();
+        close();
     }//GEN-LAST:event_cancelButtonActionPerformed
 
     private void okButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_okButtonActionPerformed
@@ -755,43 +912,44 @@ public class PageSetupDialog extends javax.swing.JDialog {
                        
         PrintServiceEntry e = (PrintServiceEntry)printerComboBox.getSelectedItem();
 
-        try {
-
-            if (e.getPrintService() != null) {  //check dimensions against selected printer
-            
-                PrinterJob job = PrinterJob.getPrinterJob();        //default printer job         
-                job.setPrintService(e.getPrintService());          //set job for selected printer         
-                PageFormat validated_fmt = job.validatePage(fmt);
-
-                //See if validation changed anything          
-                if (validated_fmt.getOrientation() != fmt.getOrientation() ||
-                    !compareDimensions(validated_fmt.getWidth(), fmt.getWidth()) ||
-                    !compareDimensions(validated_fmt.getHeight(), fmt.getHeight())) {
-
-                    throw new PrinterException("Paper dimensions are outside of the range suitable for the printer \"" + e.toString() + "\"");
-                }
-
-                if (!compareDimensions(validated_fmt.getImageableX(), fmt.getImageableX()) ||
-                    !compareDimensions(validated_fmt.getImageableY(), fmt.getImageableY()) ||
-                    !compareDimensions(validated_fmt.getImageableWidth(), fmt.getImageableWidth()) ||
-                    !compareDimensions(validated_fmt.getImageableHeight(), fmt.getImageableHeight())) {
+        if (e.getPrintService() != null)  //check dimensions against selected printer, then accept
+            runValidation(PrinterValidator.validateAsync(e.getPrintService(), fmt), (PageFormat validated_fmt) -> acceptFormat(fmt, validated_fmt, e));
+        else
+            acceptFormat(fmt, null, e);
+        
+    }//GEN-LAST:event_okButtonActionPerformed
 
-                    throw new PrinterException("Margins are outside of the printable area for the printer \"" + e.toString() + "\"");
-                }
-            }
-            
-            if (fmt.getImageableWidth() <= 0 || fmt.getImageableHeight() <= 0)
-                throw new PrinterException("Margins are too large, no remaining printable area");
-            
+    /**
+     * Close the dialog with the PageFormat as the result, if it is usable for the selected printer
+     * @param fmt the PageFormat from the dialog fields
+     * @param validated_fmt fmt validated against the selected printer, or null if no printer is selected
+     * @param e the selected printer entry
+     */
+    private void acceptFormat(PageFormat fmt, PageFormat validated_fmt, PrintServiceEntry e) {
+        
+        String error;
+        switch (PageFormatEngine.check(fmt, validated_fmt)) {
+            case SIZE_CHANGED:
+                error = "Paper dimensions are outside of the range suitable for the printer \"" + e.toString() + "\"";
+                break;
+            case MARGINS_CHANGED:
+                error = "Margins are outside of the printable area for the printer \"" + e.toString() + "\"";
+                break;
+            case NO_PRINTABLE_AREA:
+                error = "Margins are too large, no remaining printable area";
+                break;
+            default:
+                error = null;
+        }
             
-        } catch (PrinterException ex) {  //Service cannot support, close dialog, set exception
-            JOptionPane.showMessageDialog(this, ex.getMessage(), "Printer Error", JOptionPane.ERROR_MESSAGE, errorIcon);
+        if (error != null) {  //Service cannot support, keep the dialog open
+            JOptionPane.showMessageDialog(this, error, "Printer Error", JOptionPane.ERROR_MESSAGE, errorIcon);
             return;
         }
         
         returnFormat = fmt;
-        dispose();
-    }//GEN-LAST:event_okButtonActionPerformed
+        close();
+    }
 
     /**
      * Set the PageFormat from the default PageFormat for the selected printer
@@ -800,8 +958,7 @@ public class PageSetupDialog extends javax.swing.JDialog {
     private void defaultForPrinterButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_defaultForPrinterButtonActionPerformed
         PrintServiceEntry e = (PrintServiceEntry)printerComboBox.getSelectedItem();
         
-        PageFormat fmt = validateForPrinter(e.getPrintService(), null);
-        initFromPageFormat(fmt);
+        runValidation(PrinterValidator.defaultPageAsync(e.getPrintService()), this::initFromPageFormat);
   
     }//GEN-LAST:event_defaultForPrinterButtonActionPerformed
 
@@ -810,12 +967,17 @@ public class PageSetupDialog extends javax.swing.JDialog {
      * @param evt 
      */
     private void autoPaperSizeButtonMousePressed(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_autoPaperSizeButtonMousePressed
-        autoPaperMenu.show(evt.getComponent(), evt.getX(), evt.getY());
+        getAutoPaperMenu().show(evt.getComponent(), evt.getX(), evt.getY());
     }//GEN-LAST:event_autoPaperSizeButtonMousePressed
 
     private void printerComboBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_printerComboBoxActionPerformed
         PrintServiceEntry e = (PrintServiceEntry)printerComboBox.getSelectedItem();
         
+        if (e != selectedPrinter) {
+            cancelValidation();  //a result for the previously selected printer no longer applies
+            selectedPrinter = e;
+        }
+        
         validateForPrinterButton.setEnabled(!(e.getPrintService() == null));
         defaultForPrinterButton.setEnabled(!(e.getPrintService() == null));
 
@@ -0,0 +1,110 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.Frame;
+import java.awt.Image;
+import java.awt.print.PageFormat;
+import java.util.ArrayList;
+import javax.swing.Icon;
+import javax.swing.SwingUtilities;
+
+/**
+ * Keeps reusable PageSetupDialogs for applications that open the page setup many times.  Creating a dialog builds all of 
+ * its components and validates the default printer's page, while reusing one only sets its fields from the new PageFormat.
+ * 
+ * Call prewarm() when the application starts, so the first dialog is built while the application is idle:
+ * 
+ * <pre>
+ * PageSetupDialogPool pool = new PageSetupDialogPool(frame, null, null);
+ * pool.prewarm();
+ * ...
+ * PageSetupDialog diag = pool.acquire(currentFormat);
+ * diag.setVisible(true);
+ * PageFormat r = diag.getDialogResult();
+ * </pre>
+ * 
+ * The dialogs are modal. A dialog is available again as soon as it is closed. Use a pool only from the Swing thread.
+ * 
+ * @author com.kevinnovate
+ */
+public final class PageSetupDialogPool {
+    
+    private final Frame parent;
+    private final Icon errorIcon;
+    private final Image dialogIconImage;
+    private final ArrayList<PageSetupDialog> dialogs = new ArrayList<>();
+    private boolean prewarming = false;
+    private PageFormat defaultFormat;  //the default printer's validated format, once prewarmed
+    
+    /**
+     * Create a pool. The arguments are those of the PageSetupDialog constructor.
+     * @param parent the parent frame of the dialogs
+     * @param errorIcon the custom icon to show on error message popups (JOptionPanes), null to use default Java icon
+     * @param dialogIconImage the icon to show on the frame title bar, null for default Java icon
+     */
+    public PageSetupDialogPool(Frame parent, Icon errorIcon, Image dialogIconImage) {
+        this.parent = parent;
+        this.errorIcon = errorIcon;
+        this.dialogIconImage = dialogIconImage;
+    }
+    
+    /**
+     * Prepare a dialog in the background.  The printers are discovered and the default printer's page is validated on 
+     * background threads, then the dialog is built on the Swing thread once the events already queued are processed.
+     * Does nothing if a dialog is already available.
+     */
+    public void prewarm() {
+        if (prewarming || !dialogs.isEmpty())
+            return;
+        
+        prewarming = true;
+        PrintServiceDiscovery.discover(null);
+        PrinterValidator.defaultPageAsync(null).whenComplete((PageFormat fmt, Throwable ex) -> SwingUtilities.invokeLater(() -> {
+            prewarming = false;
+            defaultFormat = fmt;
+            if (dialogs.isEmpty())
+                dialogs.add(create(fmt));  //if the default page could not be validated, the dialog validates it itself
+        }));
+    }
+    
+    /**
+     * Get a dialog that is not showing, reset to a PageFormat. A new dialog is created if all are in use.
+     * @param fmt the PageFormat to initialize with. If null, the format will be initialized with the default printer format
+     * @return the dialog, ready to be shown
+     */
+    public PageSetupDialog acquire(PageFormat fmt) {
+        
+        if (fmt == null && defaultFormat != null)
+            fmt = (PageFormat)defaultFormat.clone();
+        
+        for (PageSetupDialog d : dialogs) {
+            if (!d.isVisible()) {
+                d.reset(fmt);
+                return d;
+            }
+        }
+        
+        PageSetupDialog d = create(fmt);
+        dialogs.add(d);
+        return d;
+    }
+    
+    /**
+     * Dispose all dialogs that are not showing, releasing their resources
+     */
+    public void clear() {
+        dialogs.removeIf((PageSetupDialog d) -> {
+            if (d.isVisible())
+                return false;
+            d.dispose();
+            return true;
+        });
+    }
+    
+    private PageSetupDialog create(PageFormat fmt) {
+        PageSetupDialog d = new PageSetupDialog(parent, true, fmt, errorIcon, dialogIconImage);
+        d.setReusable(true);
+        return d;
+    }
+    
+}
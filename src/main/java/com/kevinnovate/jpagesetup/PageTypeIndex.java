@@ -0,0 +1,308 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the registered AutoPageTypes with its indexes. A hash index finds a type by category and name
+ * in constant time, and an index sorted by width and then height finds types by dimension in logarithmic time.
+ * Dimensions are in PageFormat units.
+ *
+ * Adding a type creates a new snapshot, so a snapshot can be read by any number of threads without locking. The new
+ * snapshot copies the indexes, so many types are added with withAll(), which copies them once.
+ *
+ * A snapshot can also hold PaperCatalogs. Their types are found by name, by size and by nearest size after the registered
+ * types, but are not part of the type list, the categories or the search index.
+ *
+ * @author com.kevinnovate
+ */
+final class PageTypeIndex {
+
+    /**
+     * Orders types by width, then height
+     */
+    static final Comparator<AutoPageType> BY_SIZE = (AutoPageType a, AutoPageType b) -> {
+        int c = Double.compare(a.getWidth(), b.getWidth());
+        return c != 0 ? c : Double.compare(a.getHeight(), b.getHeight());
+    };
+
+    /**
+     * The hash key of a type
+     */
+    private static final class Key {
+        private final String category;
+        private final String name;
+
+        private Key(String c, String n) {
+            category = c;
+            name = n;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * category.hashCode() + name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key)o;
+            return category.equals(k.category) && name.equals(k.name);
+        }
+    }
+
+    /**
+     * The snapshot with no types
+     */
+    static final PageTypeIndex EMPTY = new PageTypeIndex(new AutoPageType[0], new HashMap<>(), new AutoPageType[0], new PaperCatalog[0]);
+
+    private final AutoPageType[] types;     //in registration order
+    private final List<AutoPageType> view;  //unmodifiable view of types
+    private final HashMap<Key, AutoPageType> byName;
+    private final AutoPageType[] bySize;    //sorted by BY_SIZE
+    private final PaperCatalog[] catalogs;  //in the order they were added
+    private volatile PageTypeMatcher matcher;  //built on first use
+    private volatile Map<String, List<AutoPageType>> categories;  //built on first use
+    private volatile PageTypeSearchIndex searchIndex;  //built on first use
+
+    private PageTypeIndex(AutoPageType[] t, HashMap<Key, AutoPageType> n, AutoPageType[] s, PaperCatalog[] c) {
+        types = t;
+        view = Collections.unmodifiableList(Arrays.asList(t));
+        byName = n;
+        bySize = s;
+        catalogs = c;
+    }
+
+    /**
+     * Create a snapshot with an added type, unless one with the same category and name exists
+     * @param t the type to add
+     * @return the new snapshot, or this snapshot if the type already exists
+     */
+    PageTypeIndex with(AutoPageType t) {
+        Key k = new Key(t.getCategory(), t.toString());
+        if (byName.containsKey(k) || inCatalogs(t))
+            return this;
+
+        HashMap<Key, AutoPageType> n = new HashMap<>(byName);
+        n.put(k, t);
+
+        AutoPageType[] all = Arrays.copyOf(types, types.length + 1);
+        all[types.length] = t;
+
+        int i = Arrays.binarySearch(bySize, t, BY_SIZE);
+        if (i < 0)
+            i = -(i + 1);
+        AutoPageType[] s = new AutoPageType[bySize.length + 1];
+        System.arraycopy(bySize, 0, s, 0, i);
+        s[i] = t;
+        System.arraycopy(bySize, i, s, i + 1, bySize.length - i);
+
+        return new PageTypeIndex(all, n, s, catalogs);
+    }
+
+    /**
+     * Create a snapshot with many added types at once, skipping those whose category and name exist in this snapshot or
+     * earlier in the list. The indexes are built once for the whole batch rather than once per type.
+     * @param added the types to add
+     * @return the new snapshot, or this snapshot if all of the types already exist
+     */
+    PageTypeIndex withAll(Collection<AutoPageType> added) {
+        HashMap<Key, AutoPageType> n = new HashMap<>((byName.size() + added.size()) * 4 / 3 + 1);
+        n.putAll(byName);
+
+        ArrayList<AutoPageType> fresh = new ArrayList<>(added.size());
+        for (AutoPageType t : added) {
+            Key k = new Key(t.getCategory(), t.toString());
+            if (n.containsKey(k) || inCatalogs(t))
+                continue;
+            n.put(k, t);
+            fresh.add(t);
+        }
+        if (fresh.isEmpty())
+            return this;
+
+        AutoPageType[] all = Arrays.copyOf(types, types.length + fresh.size());
+        for (int i = 0; i < fresh.size(); i++)
+            all[types.length + i] = fresh.get(i);
+
+        //Sort the new types and merge them into the size index, existing types first among equal sizes
+        AutoPageType[] sorted = fresh.toArray(new AutoPageType[fresh.size()]);
+        Arrays.sort(sorted, BY_SIZE);
+        AutoPageType[] s = new AutoPageType[bySize.length + sorted.length];
+        int i = 0, j = 0;
+        for (int k = 0; k < s.length; k++)
+            s[k] = j >= sorted.length || (i < bySize.length && BY_SIZE.compare(bySize[i], sorted[j]) <= 0) ? bySize[i++] : sorted[j++];
+
+        return new PageTypeIndex(all, n, s, catalogs);
+    }
+
+    private boolean inCatalogs(AutoPageType t) {
+        for (PaperCatalog c : catalogs) {
+            if (c.indexOf(t.getCategory(), t.toString()) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Create a snapshot with an added catalog. The indexes of the registered types are shared with this snapshot.
+     * @param c the catalog to add
+     * @return the new snapshot, or this snapshot if the catalog was already added
+     */
+    PageTypeIndex withCatalog(PaperCatalog c) {
+        for (PaperCatalog existing : catalogs) {
+            if (existing == c)
+                return this;
+        }
+
+        PaperCatalog[] all = Arrays.copyOf(catalogs, catalogs.length + 1);
+        all[catalogs.length] = c;
+        return new PageTypeIndex(types, byName, bySize, all);
+    }
+
+    /**
+     * Get the number of indexed types
+     * @return the type count
+     */
+    int size() {
+        return types.length;
+    }
+
+    /**
+     * Get all the types
+     * @return an unmodifiable list of the types in registration order
+     */
+    List<AutoPageType> getTypes() {
+        return view;
+    }
+
+    /**
+     * Find a type by category and name
+     * @param category the category of the type
+     * @param name the name of the type
+     * @return the type, or null if there is none
+     */
+    AutoPageType find(String category, String name) {
+        AutoPageType t = byName.get(new Key(category, name));
+        for (int i = 0; t == null && i < catalogs.length; i++)
+            t = catalogs[i].find(category, name);
+        return t;
+    }
+
+    /**
+     * Find the types whose width and height are both within a tolerance of the given dimensions
+     * @param width the width, in PageFormat units
+     * @param height the height, in PageFormat units
+     * @param tolerance the largest difference in each dimension, 0 for an exact match
+     * @return the matching types, ordered by width and then height
+     */
+    List<AutoPageType> findBySize(double width, double height, double tolerance) {
+
+        ArrayList<AutoPageType> found = new ArrayList<>();
+        for (int i = lowerBound(width - tolerance); i < bySize.length; i++) {
+            AutoPageType t = bySize[i];
+            if (t.getWidth() > width + tolerance)
+                break;
+            if (Math.abs(t.getHeight() - height) <= tolerance)
+                found.add(t);
+        }
+
+        if (catalogs.length > 0) {
+            for (PaperCatalog c : catalogs)
+                c.findBySize(width, height, tolerance, found);
+            found.sort(BY_SIZE);  //stable, so registered types come first among equal sizes
+        }
+        return found;
+    }
+
+    /**
+     * Find the type nearest to a paper size, in either orientation, among the registered types and the catalogs
+     * @param width the paper width in PageFormat units
+     * @param height the paper height in PageFormat units
+     * @param tolerance the largest distance to accept
+     * @return the nearest match, or null if no type is within the tolerance
+     */
+    PageTypeMatcher.Match match(double width, double height, double tolerance) {
+        PageTypeMatcher.Match best = getMatcher().match(width, height, tolerance);
+        for (PaperCatalog c : catalogs) {
+            PageTypeMatcher.Match m = c.match(width, height, best == null ? tolerance : best.getDistance());
+            if (m != null && (best == null || m.getDistance() < best.getDistance()))
+                best = m;
+        }
+        return best;
+    }
+
+    /**
+     * Get the types grouped by category
+     * @return an unmodifiable map from category to its types, both in registration order
+     */
+    Map<String, List<AutoPageType>> getCategories() {
+        Map<String, List<AutoPageType>> c = categories;
+        if (c == null) {  //racing threads may each build one, which is harmless
+            LinkedHashMap<String, List<AutoPageType>> grouped = new LinkedHashMap<>();
+            for (AutoPageType t : types)
+                grouped.computeIfAbsent(t.getCategory(), (String k) -> new ArrayList<>()).add(t);
+            
+            for (Map.Entry<String, List<AutoPageType>> e : grouped.entrySet())
+                e.setValue(Collections.unmodifiableList(e.getValue()));
+            
+            c = Collections.unmodifiableMap(grouped);
+            categories = c;
+        }
+        return c;
+    }
+
+    /**
+     * Get the full text index over the types of this snapshot
+     * @return the search index
+     */
+    PageTypeSearchIndex getSearchIndex() {
+        PageTypeSearchIndex i = searchIndex;
+        if (i == null) {  //racing threads may each build one, which is harmless
+            i = new PageTypeSearchIndex(view);
+            searchIndex = i;
+        }
+        return i;
+    }
+
+    /**
+     * Get the nearest-size matcher for the types of this snapshot
+     * @return the matcher
+     */
+    PageTypeMatcher getMatcher() {
+        PageTypeMatcher m = matcher;
+        if (m == null) {  //racing threads may each build one, which is harmless
+            m = new PageTypeMatcher(types);
+            matcher = m;
+        }
+        return m;
+    }
+
+    /**
+     * Get the position of the first type no narrower than the width
+     * @param width the width
+     * @return the index in bySize
+     */
+    private int lowerBound(double width) {
+        int lo = 0;
+        int hi = bySize.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bySize[mid].getWidth() < width)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+}
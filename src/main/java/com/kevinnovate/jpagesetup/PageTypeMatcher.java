@@ -0,0 +1,171 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Finds the AutoPageType nearest to a paper size, in either orientation. The types are held in a two dimensional
+ * k-d tree over their short and long sides, so a lookup visits only a logarithmic number of types on average.
+ *
+ * A matcher is an immutable snapshot of the types it was built from and is safe to share between threads.
+ *
+ * @author com.kevinnovate
+ */
+final class PageTypeMatcher {
+
+    /**
+     * The result of a match
+     */
+    static final class Match {
+        private final AutoPageType type;
+        private final double distance;
+        private final boolean rotated;
+
+        Match(AutoPageType t, double d, boolean r) {
+            type = t;
+            distance = d;
+            rotated = r;
+        }
+
+        /**
+         * Get the matched type
+         * @return the nearest type
+         */
+        AutoPageType getType() {
+            return type;
+        }
+
+        /**
+         * Get the distance between the size and the type, the Euclidean distance of their short and long sides
+         * @return the distance in PageFormat units
+         */
+        double getDistance() {
+            return distance;
+        }
+
+        /**
+         * Check whether the size is in the other orientation than the type, for instance a landscape size matching a portrait type
+         * @return true if the size is rotated relative to the type
+         */
+        boolean isRotated() {
+            return rotated;
+        }
+
+        @Override
+        public String toString() {
+            return type + " (" + distance + (rotated ? ", rotated)" : ")");
+        }
+    }
+
+    private static final Comparator<AutoPageType> BY_SHORT_SIDE = (AutoPageType a, AutoPageType b) -> Double.compare(shortSide(a), shortSide(b));
+    private static final Comparator<AutoPageType> BY_LONG_SIDE = (AutoPageType a, AutoPageType b) -> Double.compare(longSide(a), longSide(b));
+
+    //The tree is stored implicitly: the node of the range [lo, hi) is at its midpoint, and splits on the short side at even depths
+    private final AutoPageType[] types;
+    private final double[] shortSides;
+    private final double[] longSides;
+
+    /**
+     * Build a matcher
+     * @param all the types to match against
+     */
+    PageTypeMatcher(AutoPageType[] all) {
+        types = all.clone();
+        build(0, types.length, 0);
+
+        shortSides = new double[types.length];
+        longSides = new double[types.length];
+        for (int i = 0; i < types.length; i++) {
+            shortSides[i] = shortSide(types[i]);
+            longSides[i] = longSide(types[i]);
+        }
+    }
+
+    private static double shortSide(AutoPageType t) {
+        return Math.min(t.getWidth(), t.getHeight());
+    }
+
+    private static double longSide(AutoPageType t) {
+        return Math.max(t.getWidth(), t.getHeight());
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1)
+            return;
+
+        Arrays.sort(types, lo, hi, (depth & 1) == 0 ? BY_SHORT_SIDE : BY_LONG_SIDE);
+        int mid = (lo + hi) >>> 1;
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Mutable state of a single search
+     */
+    private static final class Search {
+        private final double shortSide;
+        private final double longSide;
+        private double best;
+        private int bestIndex = -1;
+
+        private Search(double s, double l, double maxDistance) {
+            shortSide = s;
+            longSide = l;
+            best = maxDistance * maxDistance;
+        }
+    }
+
+    /**
+     * Find the type nearest to a paper size, in either orientation
+     * @param width the paper width in PageFormat units
+     * @param height the paper height in PageFormat units
+     * @param tolerance the largest distance to accept
+     * @return the nearest match, or null if no type is within the tolerance
+     */
+    Match match(double width, double height, double tolerance) {
+
+        Search s = new Search(Math.min(width, height), Math.max(width, height), tolerance);
+        search(s, 0, types.length, 0);
+        if (s.bestIndex < 0)
+            return null;
+
+        AutoPageType t = types[s.bestIndex];
+        boolean rotated = (width > height && t.getWidth() < t.getHeight()) || (width < height && t.getWidth() > t.getHeight());
+        return new Match(t, Math.sqrt(s.best), rotated);
+    }
+
+    private void search(Search s, int lo, int hi, int depth) {
+        if (lo >= hi)
+            return;
+
+        int mid = (lo + hi) >>> 1;
+        double ds = shortSides[mid] - s.shortSide;
+        double dl = longSides[mid] - s.longSide;
+        double d = ds * ds + dl * dl;
+        if (d <= s.best && (s.bestIndex < 0 || d < s.best)) {
+            s.best = d;
+            s.bestIndex = mid;
+        }
+
+        double diff = (depth & 1) == 0 ? s.shortSide - shortSides[mid] : s.longSide - longSides[mid];
+        if (diff < 0) {
+            search(s, lo, mid, depth + 1);
+            if (diff * diff <= s.best)
+                search(s, mid + 1, hi, depth + 1);
+        } else {
+            search(s, mid + 1, hi, depth + 1);
+            if (diff * diff <= s.best)
+                search(s, lo, mid, depth + 1);
+        }
+    }
+
+    /**
+     * Get the number of types in the matcher
+     * @return the type count
+     */
+    int size() {
+        return types.length;
+    }
+
+}
@@ -0,0 +1,213 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A full text index over the name, category and dimension string of AutoPageTypes, for type-ahead filtering of large
+ * catalogs.  Each type is indexed by the trigrams (three character sequences) of its lower case text. A query term of
+ * three or more characters is answered by intersecting the posting lists of its trigrams and confirming the candidates,
+ * shorter terms are answered by a scan.
+ *
+ * Query results are arrays of positions in the list of types the index was built from, in ascending order. An index is
+ * immutable and safe to share between threads.
+ *
+ * @author com.kevinnovate
+ */
+final class PageTypeSearchIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final List<AutoPageType> types;
+    private final String[] text;              //lower case searchable text of each type
+    private final HashMap<Long, int[]> postings;  //trigram to the ascending positions of the types containing it
+
+    /**
+     * Build an index
+     * @param all the types to index
+     */
+    PageTypeSearchIndex(List<AutoPageType> all) {
+        types = all;
+        text = new String[all.size()];
+
+        HashMap<Long, int[]> lists = new HashMap<>();  //growing posting lists, the last element holds the count
+        for (int i = 0; i < text.length; i++) {
+            AutoPageType t = all.get(i);
+            text[i] = (t.toString() + " " + t.getCategory() + " " + t.getDimensionString()).toLowerCase(Locale.ROOT);
+
+            String s = text[i];
+            for (int j = 0; j + 3 <= s.length(); j++) {
+                long g = trigram(s, j);
+                int[] list = lists.get(g);
+                if (list == null) {
+                    list = new int[4];
+                    lists.put(g, list);
+                }
+
+                int n = list[list.length - 1];
+                if (n > 0 && list[n - 1] == i)  //trigram repeats within this type
+                    continue;
+
+                if (n == list.length - 1) {
+                    list = Arrays.copyOf(list, list.length * 2);
+                    list[list.length - 1] = n;
+                    lists.put(g, list);
+                }
+                list[n] = i;
+                list[list.length - 1] = n + 1;
+            }
+        }
+
+        postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, int[]> e : lists.entrySet()) {
+            int[] list = e.getValue();
+            postings.put(e.getKey(), Arrays.copyOf(list, list[list.length - 1]));
+        }
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long)s.charAt(i) << 32) | ((long)s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Get the types the index was built from
+     * @return the indexed types
+     */
+    List<AutoPageType> getTypes() {
+        return types;
+    }
+
+    /**
+     * Get the number of indexed types
+     * @return the type count
+     */
+    int size() {
+        return text.length;
+    }
+
+    /**
+     * Split a query into lower case terms
+     * @param query the query
+     * @return the terms, empty if the query is blank
+     */
+    static String[] terms(String query) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        return q.isEmpty() ? new String[0] : q.split("\\s+");
+    }
+
+    /**
+     * Find the types whose text contains every term of a query
+     * @param query the whitespace separated terms, matched case-insensitively
+     * @return the positions of the matching types, ascending. A blank query matches every type.
+     */
+    int[] search(String query) {
+        String[] terms = terms(query);
+
+        int[] candidates = null;  //null is every type
+        for (String term : terms) {
+            if (term.length() >= 3) {
+                candidates = intersect(candidates, lookup(term));
+                if (candidates.length == 0)
+                    return NONE;
+            }
+        }
+
+        return filter(candidates, terms);
+    }
+
+    /**
+     * Narrow an earlier result to the types that also match a new query. When the user extends the query, this is
+     * cheaper than a new search since only the earlier matches are examined.
+     * @param previous the result of an earlier query, which every match of the new query must also have matched
+     * @param query the new query
+     * @return the positions of the matching types, ascending
+     */
+    int[] refine(int[] previous, String query) {
+        return filter(previous, terms(query));
+    }
+
+    /**
+     * Get the types containing every trigram of a term, which may contain the term
+     * @param term a term of at least three characters
+     * @return the candidate positions, ascending
+     */
+    private int[] lookup(String term) {
+
+        //Intersect starting with the rarest trigram, so the candidate list is small from the start
+        int[] result = null;
+        long[] grams = new long[term.length() - 2];
+        for (int j = 0; j < grams.length; j++) {
+            grams[j] = trigram(term, j);
+            int[] list = postings.get(grams[j]);
+            if (list == null)
+                return NONE;
+            if (result == null || list.length < result.length)
+                result = list;
+        }
+
+        for (long g : grams) {
+            int[] list = postings.get(g);
+            if (list != result)
+                result = intersect(result, list);
+        }
+        return result;
+    }
+
+    /**
+     * Intersect two ascending position lists
+     * @param a the first list, or null for every type
+     * @param b the second list
+     * @return the positions in both
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        if (a == null)
+            return b;
+
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Keep the candidates whose text contains all the terms
+     * @param candidates the ascending positions to examine, null for every type
+     * @param terms the lower case terms
+     * @return the matching positions
+     */
+    private int[] filter(int[] candidates, String[] terms) {
+        int count = candidates == null ? text.length : candidates.length;
+        int[] out = new int[count];
+        int n = 0;
+
+        for (int k = 0; k < count; k++) {
+            int i = candidates == null ? k : candidates[k];
+            if (containsAll(text[i], terms))
+                out[n++] = i;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static boolean containsAll(String s, String[] terms) {
+        for (String term : terms) {
+            if (!s.contains(term))
+                return false;
+        }
+        return true;
+    }
+
+}
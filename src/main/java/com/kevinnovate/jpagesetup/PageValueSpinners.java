@@ -0,0 +1,149 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.util.Locale;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.text.DefaultFormatterFactory;
+import javax.swing.text.NumberFormatter;
+
+/**
+ * Keeps the size and margins of a page in PageFormat units, and shows them in a spinner per value in a PageMeasureUnit.
+ * Values the user enters are converted to PageFormat units. Changes the spinners make while values are shown, or while
+ * the unit changes, are ignored, so switching back and forth between units never changes or rounds the page.
+ *
+ * @author com.kevinnovate
+ */
+final class PageValueSpinners {
+
+    private final double[] values = new double[PageFormatEngine.VALUE_COUNT];  //the page in PageFormat units
+    private final JSpinner[] spinners;  //the spinner of each value, by PageFormatEngine index
+    private final Locale locale;
+    private PageMeasureUnit unit;
+    private boolean showing = false;  //true while the spinners are set from the values
+
+    /**
+     * Edit page values with spinners
+     * @param spinners the spinner of each value, by PageFormatEngine index, each with a SpinnerNumberModel
+     * @param unit the unit to show the values in
+     * @param locale the locale to format the values for
+     */
+    PageValueSpinners(JSpinner[] spinners, PageMeasureUnit unit, Locale locale) {
+        if (spinners.length != PageFormatEngine.VALUE_COUNT)
+            throw new IllegalArgumentException("Expected " + PageFormatEngine.VALUE_COUNT + " spinners");
+
+        this.spinners = spinners.clone();
+        this.locale = locale;
+        for (int i = 0; i < spinners.length; i++) {
+            int index = i;
+            spinners[i].addChangeListener((ChangeEvent e) -> spinnerChanged(index));
+        }
+        setUnit(unit);
+    }
+
+    /**
+     * Get the unit the values are shown in
+     * @return the unit
+     */
+    PageMeasureUnit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Show the values in another unit. The step size and format of the spinners change, the values do not.
+     * @param u the new unit
+     */
+    void setUnit(PageMeasureUnit u) {
+        showing = true;  //a new step size makes the spinner models fire, with the number shown in the old unit
+        try {
+            unit = u;
+            for (JSpinner s : spinners) {
+                ((SpinnerNumberModel)s.getModel()).setStepSize(u.getIncrementSize());
+                installFormatter(s, u);
+            }
+            showAll();
+        } finally {
+            showing = false;
+        }
+    }
+
+    /**
+     * Get a value
+     * @param index the PageFormatEngine index of the value
+     * @return the value in PageFormat units
+     */
+    double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Take the values of a PageFormat and show them
+     * @param format the format
+     */
+    void setFrom(PageFormat format) {
+        PageFormatEngine.getValues(format, values);
+        show();
+    }
+
+    /**
+     * Set the paper size and show it, keeping the margins
+     * @param width the width in PageFormat units
+     * @param height the height in PageFormat units
+     */
+    void setSize(double width, double height) {
+        values[PageFormatEngine.WIDTH] = width;
+        values[PageFormatEngine.HEIGHT] = height;
+        show();
+    }
+
+    /**
+     * Create a PageFormat from the values
+     * @param orientation the PageFormat orientation
+     * @return the new PageFormat
+     */
+    PageFormat createPageFormat(int orientation) {
+        return PageFormatEngine.create(orientation, values);
+    }
+
+    /**
+     * Show the values in the spinners, in the current unit
+     */
+    private void show() {
+        showing = true;
+        try {
+            showAll();
+        } finally {
+            showing = false;
+        }
+    }
+
+    private void showAll() {
+        for (int i = 0; i < spinners.length; i++)
+            spinners[i].setValue(unit.fromPFUnits(values[i]));
+    }
+
+    /**
+     * Take a value the user entered in a spinner into the values
+     * @param index the PageFormatEngine index of the value
+     */
+    private void spinnerChanged(int index) {
+        if (!showing)
+            values[index] = unit.toPFUnits((double)spinners[index].getValue());
+    }
+
+    /**
+     * Show a spinner's value with the precision of a unit. The spinner keeps its editor, only its text field's formatter
+     * is replaced, with a copy of the unit's cached DecimalFormat.
+     * @param s the spinner
+     * @param u the unit
+     */
+    private void installFormatter(JSpinner s, PageMeasureUnit u) {
+        NumberFormatter f = new NumberFormatter(u.getFormatter(locale).newDecimalFormat());
+        f.setValueClass(Double.class);  //the format parses whole numbers as Long
+        f.setMinimum(0.0d);
+        ((JSpinner.DefaultEditor)s.getEditor()).getTextField().setFormatterFactory(new DefaultFormatterFactory(f));
+    }
+
+}
@@ -0,0 +1,481 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A large catalog of paper types in a compact binary file, read through a memory mapping. Opening a catalog only checks
+ * its header, and no object is created per type: the AutoPageType for an entry is created when a lookup returns it. The
+ * heap cost and the time to open are therefore the same for a catalog of ten types or of hundreds of thousands.
+ *
+ * Attach a catalog with attach() to have its types found by name, by size and by the nearest-size match.
+ * Catalog types are not listed in the dialog's paper menu, which would not be usable at that size.
+ *
+ * Catalogs are created with a Builder. The file is big-endian and consists of:
+ * <pre>
+ * header        magic "JPPC", version, entry count, unit count, string count, then the offsets of the sections below
+ * units         per unit, the string index of its PageMeasureUnit abbreviation
+ * records       per entry, 32 bytes: width and height as doubles in the entry's unit, the string indexes of the category
+ *               and name, the unit index, and the hash of the category and name
+ * size index    entry indexes ordered by width, then height, in PageFormat units
+ * name table    open addressing hash table of entry index + 1, 0 for empty slots
+ * strings       the UTF-8 strings, with a table of their start offsets, each string stored once
+ * </pre>
+ * The records are ordered as an implicit k-d tree over the short and long sides, as in PageTypeMatcher, so the nearest
+ * size is found without an index in memory. Entries are numbered in that order.
+ *
+ * @author com.kevinnovate
+ */
+public final class PaperCatalog {
+
+    private static final int MAGIC = 0x4A50_5043;  //"JPPC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int RECORD_SIZE = 32;
+
+    //Header fields
+    private static final int H_COUNT = 8, H_UNIT_COUNT = 12, H_STRING_COUNT = 16, H_UNITS = 20, H_RECORDS = 24,
+                             H_SIZE_INDEX = 28, H_HASH = 32, H_HASH_SIZE = 36, H_STRING_OFFSETS = 40, H_STRING_DATA = 44;
+
+    //Record fields
+    private static final int R_WIDTH = 0, R_HEIGHT = 8, R_CATEGORY = 16, R_NAME = 20, R_UNIT = 24, R_HASH = 28;
+
+    /**
+     * Collects paper types and writes them as a catalog file
+     */
+    public static final class Builder {
+
+        private final ArrayList<String> categories = new ArrayList<>();
+        private final ArrayList<String> names = new ArrayList<>();
+        private final ArrayList<PageMeasureUnit> units = new ArrayList<>();
+        private double[] dimensions = new double[64];  //width and height of each entry, in its unit
+        private final HashSet<String> keys = new HashSet<>();
+
+        /**
+         * Add a paper type
+         * @param category the category of the type
+         * @param name the name, unique in the category
+         * @param width width of the paper
+         * @param height height of the paper
+         * @param unit units of width and height, which must be registered when the catalog is opened
+         * @return true if added, false if the name already exists in the category
+         */
+        public boolean add(String category, String name, double width, double height, PageMeasureUnit unit) {
+            if (!(width > 0 && height > 0))
+                throw new IllegalArgumentException("Type \"" + name + "\" must have a positive size");
+            if (!keys.add(category + '\u0000' + name))
+                return false;
+
+            int n = names.size();
+            if (2 * n + 2 > dimensions.length)
+                dimensions = Arrays.copyOf(dimensions, dimensions.length * 2);
+            dimensions[2 * n] = width;
+            dimensions[2 * n + 1] = height;
+            categories.add(category);
+            names.add(name);
+            units.add(unit);
+            return true;
+        }
+
+        /**
+         * Get the number of types added
+         * @return the type count
+         */
+        public int size() {
+            return names.size();
+        }
+
+        /**
+         * Write the catalog, replacing any existing file
+         * @param file the catalog file
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Path file) throws IOException {
+
+            int count = names.size();
+            double[] shortSides = new double[count];
+            double[] longSides = new double[count];
+            double[] widths = new double[count];
+            double[] heights = new double[count];
+            for (int i = 0; i < count; i++) {
+                widths[i] = units.get(i).toPFUnits(dimensions[2 * i]);
+                heights[i] = units.get(i).toPFUnits(dimensions[2 * i + 1]);
+                shortSides[i] = Math.min(widths[i], heights[i]);
+                longSides[i] = Math.max(widths[i], heights[i]);
+            }
+
+            //Order the entries as the k-d tree the matcher searches
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++)
+                order[i] = i;
+            buildTree(order, 0, count, 0, shortSides, longSides);
+
+            //The strings and units, each stored once
+            LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+            LinkedHashMap<PageMeasureUnit, Integer> unitIndexes = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                strings.putIfAbsent(categories.get(i), strings.size());
+                strings.putIfAbsent(names.get(i), strings.size());
+                unitIndexes.putIfAbsent(units.get(i), unitIndexes.size());
+            }
+            for (PageMeasureUnit u : unitIndexes.keySet())
+                strings.putIfAbsent(u.abbr(), strings.size());
+
+            byte[][] encoded = new byte[strings.size()][];
+            int stringBytes = 0;
+            for (Map.Entry<String, Integer> e : strings.entrySet()) {
+                encoded[e.getValue()] = e.getKey().getBytes(StandardCharsets.UTF_8);
+                stringBytes += encoded[e.getValue()].length;
+            }
+
+            int hashSize = Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1;  //power of two, at most half full
+            int unitsOffset = HEADER_SIZE;
+            int recordsOffset = unitsOffset + 4 * unitIndexes.size();
+            int sizeIndexOffset = recordsOffset + RECORD_SIZE * count;
+            int hashOffset = sizeIndexOffset + 4 * count;
+            int stringOffsetsOffset = hashOffset + 4 * hashSize;
+            int stringDataOffset = stringOffsetsOffset + 4 * (strings.size() + 1);
+            long total = (long)stringDataOffset + stringBytes;
+            if (total > Integer.MAX_VALUE)
+                throw new IOException("Catalog too large");
+
+            ByteBuffer b = ByteBuffer.allocate((int)total);  //big-endian
+            b.putInt(0, MAGIC).putInt(4, VERSION).putInt(H_COUNT, count).putInt(H_UNIT_COUNT, unitIndexes.size())
+             .putInt(H_STRING_COUNT, strings.size()).putInt(H_UNITS, unitsOffset).putInt(H_RECORDS, recordsOffset)
+             .putInt(H_SIZE_INDEX, sizeIndexOffset).putInt(H_HASH, hashOffset).putInt(H_HASH_SIZE, hashSize)
+             .putInt(H_STRING_OFFSETS, stringOffsetsOffset).putInt(H_STRING_DATA, stringDataOffset);
+
+            for (Map.Entry<PageMeasureUnit, Integer> e : unitIndexes.entrySet())
+                b.putInt(unitsOffset + 4 * e.getValue(), strings.get(e.getKey().abbr()));
+
+            int[] position = new int[count];  //entry number of each added type
+            for (int r = 0; r < count; r++) {
+                int i = order[r];
+                position[i] = r;
+                int at = recordsOffset + RECORD_SIZE * r;
+                b.putDouble(at + R_WIDTH, dimensions[2 * i]);
+                b.putDouble(at + R_HEIGHT, dimensions[2 * i + 1]);
+                b.putInt(at + R_CATEGORY, strings.get(categories.get(i)));
+                b.putInt(at + R_NAME, strings.get(names.get(i)));
+                b.putInt(at + R_UNIT, unitIndexes.get(units.get(i)));
+                b.putInt(at + R_HASH, hash(categories.get(i), names.get(i)));
+            }
+
+            Integer[] bySize = new Integer[count];
+            for (int i = 0; i < count; i++)
+                bySize[i] = i;
+            Arrays.sort(bySize, (Integer x, Integer y) -> {
+                int c = Double.compare(widths[x], widths[y]);
+                return c != 0 ? c : Double.compare(heights[x], heights[y]);
+            });
+            for (int k = 0; k < count; k++)
+                b.putInt(sizeIndexOffset + 4 * k, position[bySize[k]]);
+
+            for (int r = 0; r < count; r++) {
+                int i = order[r];
+                int slot = hash(categories.get(i), names.get(i)) & (hashSize - 1);
+                while (b.getInt(hashOffset + 4 * slot) != 0)  //linear probing
+                    slot = (slot + 1) & (hashSize - 1);
+                b.putInt(hashOffset + 4 * slot, r + 1);
+            }
+
+            int offset = 0;
+            for (int s = 0; s < encoded.length; s++) {
+                b.putInt(stringOffsetsOffset + 4 * s, offset);
+                for (int k = 0; k < encoded[s].length; k++)
+                    b.put(stringDataOffset + offset + k, encoded[s][k]);
+                offset += encoded[s].length;
+            }
+            b.putInt(stringOffsetsOffset + 4 * encoded.length, offset);
+
+            Files.write(file, b.array());
+        }
+
+        private static void buildTree(Integer[] order, int lo, int hi, int depth, double[] shortSides, double[] longSides) {
+            if (hi - lo <= 1)
+                return;
+
+            double[] key = (depth & 1) == 0 ? shortSides : longSides;
+            Arrays.sort(order, lo, hi, (Integer x, Integer y) -> Double.compare(key[x], key[y]));
+            int mid = (lo + hi) >>> 1;
+            buildTree(order, lo, mid, depth + 1, shortSides, longSides);
+            buildTree(order, mid + 1, hi, depth + 1, shortSides, longSides);
+        }
+    }
+
+    private final ByteBuffer buffer;  //only absolute gets are used, so it is shared between threads
+    private final int count;
+    private final PageMeasureUnit[] units;
+    private final int records, sizeIndex, hashTable, hashMask, stringOffsets, stringData;
+
+    private PaperCatalog(ByteBuffer b, String source) throws IOException {
+        buffer = b;
+        if (b.capacity() < HEADER_SIZE || b.getInt(0) != MAGIC)
+            throw new IOException(source + ": not a paper catalog");
+        if (b.getInt(4) != VERSION)
+            throw new IOException(source + ": unsupported catalog version " + b.getInt(4));
+
+        count = b.getInt(H_COUNT);
+        int unitCount = b.getInt(H_UNIT_COUNT);
+        int stringCount = b.getInt(H_STRING_COUNT);
+        records = b.getInt(H_RECORDS);
+        sizeIndex = b.getInt(H_SIZE_INDEX);
+        hashTable = b.getInt(H_HASH);
+        int hashSize = b.getInt(H_HASH_SIZE);
+        hashMask = hashSize - 1;
+        stringOffsets = b.getInt(H_STRING_OFFSETS);
+        stringData = b.getInt(H_STRING_DATA);
+
+        //Check that the sections fit the file, so that a truncated or damaged file fails here rather than on a lookup
+        int unitsOffset = b.getInt(H_UNITS);
+        if (count < 0 || unitCount < 0 || stringCount < 0 || hashSize <= 0 || (hashSize & hashMask) != 0 || hashSize <= count ||
+                !fits(b, unitsOffset, 4L * unitCount) || !fits(b, records, (long)RECORD_SIZE * count) || !fits(b, sizeIndex, 4L * count) ||
+                !fits(b, hashTable, 4L * hashSize) || !fits(b, stringOffsets, 4L * (stringCount + 1)) ||
+                !fits(b, stringData, b.getInt(stringOffsets + 4 * stringCount)))
+            throw new IOException(source + ": damaged paper catalog");
+
+        units = new PageMeasureUnit[unitCount];
+        for (int i = 0; i < unitCount; i++) {
+            String abbr = getString(b.getInt(unitsOffset + 4 * i));
+            try {
+                units[i] = PageMeasureUnit.valueOf(abbr);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(source + ": unknown unit \"" + abbr + "\"", ex);
+            }
+        }
+    }
+
+    private static boolean fits(ByteBuffer b, int offset, long length) {
+        return offset >= 0 && length >= 0 && offset + length <= b.capacity();
+    }
+
+    /**
+     * Open a catalog file. The file is mapped rather than read, and must not be modified while the catalog is in use.
+     * @param file the catalog file, written by a Builder
+     * @return the catalog
+     * @throws IOException if the file cannot be mapped, or is not a catalog of this version
+     */
+    public static PaperCatalog open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE)
+                throw new IOException(file + ": catalog too large");
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());  //stays valid after the channel is closed
+            return new PaperCatalog(b, file.toString());
+        }
+    }
+
+    /**
+     * Get the number of types in the catalog
+     * @return the type count
+     */
+    public int size() {
+        return count;
+    }
+
+    private int record(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("No entry " + i);
+        return records + RECORD_SIZE * i;
+    }
+
+    /**
+     * Attach the catalog to the paper types, so that the PageSetupDialog finds its types by name, by size and by the
+     * nearest-size match. Types already registered take precedence over catalog types of the same category and name.
+     */
+    public void attach() {
+        AutoPageType.addCatalog(this);
+    }
+
+    /**
+     * Gets the category of an entry
+     * @param i the entry
+     * @return the category of the Paper type
+     */
+    public String getCategory(int i) {
+        return getString(buffer.getInt(record(i) + R_CATEGORY));
+    }
+
+    /**
+     * Gets the name of an entry, unique in its category
+     * @param i the entry
+     * @return the name of the Paper type
+     */
+    public String getName(int i) {
+        return getString(buffer.getInt(record(i) + R_NAME));
+    }
+
+    /**
+     * Gets the unit the dimensions of an entry were given in
+     * @param i the entry
+     * @return the unit of the Paper type
+     */
+    public PageMeasureUnit getUnit(int i) {
+        return units[buffer.getInt(record(i) + R_UNIT)];
+    }
+
+    /**
+     * Gets the width of an entry in PageFormat units
+     * @param i the entry
+     * @return width of the Paper type
+     */
+    public double getWidth(int i) {
+        int r = record(i);
+        return units[buffer.getInt(r + R_UNIT)].toPFUnits(buffer.getDouble(r + R_WIDTH));
+    }
+
+    /**
+     * Gets the height of an entry in PageFormat units
+     * @param i the entry
+     * @return height of the Paper type
+     */
+    public double getHeight(int i) {
+        int r = record(i);
+        return units[buffer.getInt(r + R_UNIT)].toPFUnits(buffer.getDouble(r + R_HEIGHT));
+    }
+
+    /**
+     * Find an entry by its category and name
+     * @param category the category of the type
+     * @param name the name of the type
+     * @return the entry, or -1 if there is no such type
+     */
+    public int indexOf(String category, String name) {
+        int h = hash(category, name);
+        int slot = h & hashMask;
+        for (int probes = 0; probes <= hashMask; probes++, slot = (slot + 1) & hashMask) {
+            int e = buffer.getInt(hashTable + 4 * slot) - 1;
+            if (e < 0)
+                return -1;
+            int r = record(e);
+            if (buffer.getInt(r + R_HASH) == h && name.equals(getString(buffer.getInt(r + R_NAME))) &&
+                    category.equals(getString(buffer.getInt(r + R_CATEGORY))))
+                return e;
+        }
+        return -1;
+    }
+
+    /**
+     * Create the AutoPageType of an entry
+     * @param i the entry
+     * @return a new type
+     */
+    AutoPageType get(int i) {
+        int r = record(i);
+        return new AutoPageType(getString(buffer.getInt(r + R_CATEGORY)), getString(buffer.getInt(r + R_NAME)),
+                                buffer.getDouble(r + R_WIDTH), buffer.getDouble(r + R_HEIGHT), units[buffer.getInt(r + R_UNIT)]);
+    }
+
+    /**
+     * Find a type by category and name
+     * @param category the category of the type
+     * @param name the name of the type
+     * @return the type, or null if there is none
+     */
+    AutoPageType find(String category, String name) {
+        int i = indexOf(category, name);
+        return i < 0 ? null : get(i);
+    }
+
+    /**
+     * Add the types whose width and height are both within a tolerance of the given dimensions
+     * @param width the width, in PageFormat units
+     * @param height the height, in PageFormat units
+     * @param tolerance the largest difference in each dimension, 0 for an exact match
+     * @param found receives the matching types, ordered by width and then height
+     */
+    void findBySize(double width, double height, double tolerance, List<AutoPageType> found) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {  //the first entry no narrower than width - tolerance
+            int mid = (lo + hi) >>> 1;
+            if (getWidth(buffer.getInt(sizeIndex + 4 * mid)) < width - tolerance)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        for (int k = lo; k < count; k++) {
+            int e = buffer.getInt(sizeIndex + 4 * k);
+            if (getWidth(e) > width + tolerance)
+                break;
+            if (Math.abs(getHeight(e) - height) <= tolerance)
+                found.add(get(e));
+        }
+    }
+
+    /**
+     * Find the type nearest to a paper size, in either orientation, measured as PageTypeMatcher does
+     * @param width the paper width in PageFormat units
+     * @param height the paper height in PageFormat units
+     * @param tolerance the largest distance to accept
+     * @return the nearest match, or null if no type is within the tolerance
+     */
+    PageTypeMatcher.Match match(double width, double height, double tolerance) {
+        double[] best = {tolerance * tolerance, -1};  //squared distance and entry
+        search(Math.min(width, height), Math.max(width, height), best, 0, count, 0);
+        if (best[1] < 0)
+            return null;
+
+        int e = (int)best[1];
+        double w = getWidth(e);
+        double h = getHeight(e);
+        boolean rotated = (width > height && w < h) || (width < height && w > h);
+        return new PageTypeMatcher.Match(get(e), Math.sqrt(best[0]), rotated);
+    }
+
+    private void search(double shortSide, double longSide, double[] best, int lo, int hi, int depth) {
+        if (lo >= hi)
+            return;
+
+        int mid = (lo + hi) >>> 1;
+        double w = getWidth(mid);
+        double h = getHeight(mid);
+        double s = Math.min(w, h);
+        double l = Math.max(w, h);
+        double ds = s - shortSide;
+        double dl = l - longSide;
+        double d = ds * ds + dl * dl;
+        if (d <= best[0] && (best[1] < 0 || d < best[0])) {
+            best[0] = d;
+            best[1] = mid;
+        }
+
+        double diff = (depth & 1) == 0 ? shortSide - s : longSide - l;
+        if (diff < 0) {
+            search(shortSide, longSide, best, lo, mid, depth + 1);
+            if (diff * diff <= best[0])
+                search(shortSide, longSide, best, mid + 1, hi, depth + 1);
+        } else {
+            search(shortSide, longSide, best, mid + 1, hi, depth + 1);
+            if (diff * diff <= best[0])
+                search(shortSide, longSide, best, lo, mid, depth + 1);
+        }
+    }
+
+    private String getString(int s) {
+        int start = buffer.getInt(stringOffsets + 4 * s);
+        int end = buffer.getInt(stringOffsets + 4 * s + 4);
+        byte[] bytes = new byte[end - start];
+        for (int k = 0; k < bytes.length; k++)  //absolute gets, so that threads can share the buffer
+            bytes[k] = buffer.get(stringData + start + k);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int hash(String category, String name) {
+        return 31 * category.hashCode() + name.hashCode();  //as AutoPageType.hashCode(), stable across runs
+    }
+
+}
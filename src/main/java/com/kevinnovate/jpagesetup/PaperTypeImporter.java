@@ -0,0 +1,676 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Imports paper types in bulk from CSV or JSON, for instance a customer's catalog. The input is read as a stream and cut
+ * into chunks of rows, which are converted (numbers parsed, units resolved, dimensions converted) in parallel on a
+ * ForkJoinPool while reading continues. Duplicates are then dropped, keeping the first, and all the new types are
+ * added to the AutoPageType registry with a single publication, so readers see either none or all of them.
+ *
+ * A row that cannot be converted is reported with its line number and skipped, without stopping the import. Input that
+ * is not CSV or JSON at all ends the import with an IOException, and nothing is added.
+ *
+ * Each type has a category, name, width, height and unit, the abbreviation of a registered PageMeasureUnit. In CSV these
+ * are the columns in that order, or in any order given by a header row naming them. Quoted fields may contain commas,
+ * quotes (doubled) and line breaks:
+ * <pre>
+ * category,name,width,height,unit
+ * Die-cut Labels,DC-1042,62,29,mm
+ * "Labels, Round",R-2,2,2,in
+ * </pre>
+ * In JSON, the types are objects in an array, or one object after another as in JSON Lines. Other keys are ignored, and
+ * numbers may be given as numbers or strings:
+ * <pre>
+ * [ {"category": "Die-cut Labels", "name": "DC-1042", "width": 62, "height": 29, "unit": "mm"} ]
+ * </pre>
+ *
+ * @author com.kevinnovate
+ */
+public final class PaperTypeImporter {
+
+    /**
+     * The input formats
+     */
+    public enum Format { CSV, JSON }
+
+    /**
+     * A row that was skipped
+     */
+    public static final class RowError {
+        private final int line;
+        private final String message;
+
+        private RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Get the line the row starts on
+         * @return the line number, from 1
+         */
+        public int getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * The outcome of an import
+     */
+    public static final class Result {
+        private final int rows, added, duplicates;
+        private final List<RowError> errors;
+
+        private Result(int rows, int added, int duplicates, List<RowError> errors) {
+            this.rows = rows;
+            this.added = added;
+            this.duplicates = duplicates;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Get the number of rows read, not counting a CSV header or blank lines
+         * @return the row count
+         */
+        public int getRowCount() {
+            return rows;
+        }
+
+        /**
+         * Get the number of types added to the registry
+         * @return the added count
+         */
+        public int getAdded() {
+            return added;
+        }
+
+        /**
+         * Get the number of valid rows skipped because their category and name were already registered or appeared
+         * earlier in the input
+         * @return the duplicate count
+         */
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * Get the rows skipped because they could not be converted
+         * @return the errors, in input order
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows: " + added + " added, " + duplicates + " duplicates, " + errors.size() + " errors";
+        }
+    }
+
+    private static final int CHUNK_SIZE = 4096;  //rows converted by one task
+
+    //Fields of a row, in the default CSV column order
+    private static final String[] FIELDS = {"category", "name", "width", "height", "unit"};
+    private static final int CATEGORY = 0, NAME = 1, WIDTH = 2, HEIGHT = 3, UNIT = 4;
+
+    /**
+     * A row as read, before conversion
+     */
+    private static final class Row {
+        private final int line;
+        private final String[] fields = new String[FIELDS.length];  //null for missing fields
+        private String error;  //set if the row could not be read
+
+        private Row(int line) {
+            this.line = line;
+        }
+    }
+
+    /**
+     * The types converted from a chunk of rows
+     */
+    private static final class Chunk {
+        private final AutoPageType[] types;  //null for rows with errors
+        private final ArrayList<RowError> errors = new ArrayList<>();
+
+        private Chunk(int size) {
+            types = new AutoPageType[size];
+        }
+    }
+
+    /**
+     * Converts a chunk of rows on the pool
+     */
+    private static final class ConvertTask extends RecursiveTask<Chunk> {
+        private List<Row> rows;  //released once converted, so that the task does not keep the input
+
+        private ConvertTask(List<Row> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        protected Chunk compute() {
+            Chunk c = new Chunk(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Row r = rows.get(i);
+                try {
+                    c.types[i] = convert(r);
+                } catch (IllegalArgumentException ex) {
+                    c.errors.add(new RowError(r.line, ex.getMessage()));
+                }
+            }
+            rows = null;
+            return c;
+        }
+    }
+
+    /**
+     * Reads rows from the input, one at a time
+     */
+    private interface RowSource {
+
+        /**
+         * Read the next row
+         * @return the row, or null at the end of the input
+         * @throws IOException if the input cannot be read or is malformed beyond the row
+         */
+        Row next() throws IOException;
+    }
+
+    private PaperTypeImporter() {}
+
+    /**
+     * Import the types in a file on the common ForkJoinPool. Files ending in .json or .jsonl are read as JSON, all others
+     * as CSV, in UTF-8.
+     * @param file the file
+     * @return the outcome of the import
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static Result importTypes(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        Format format = name.endsWith(".json") || name.endsWith(".jsonl") ? Format.JSON : Format.CSV;
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importTypes(r, format, ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * Import the types from a stream on the common ForkJoinPool
+     * @param in the input, which is not closed
+     * @param format the format of the input
+     * @return the outcome of the import
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    public static Result importTypes(Reader in, Format format) throws IOException {
+        return importTypes(in, format, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Import the types from a stream
+     * @param in the input, which is not closed
+     * @param format the format of the input
+     * @param pool the pool to convert the rows on
+     * @return the outcome of the import
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    public static Result importTypes(Reader in, Format format, ForkJoinPool pool) throws IOException {
+
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader)in : new BufferedReader(in);
+        RowSource source = format == Format.CSV ? new CsvSource(reader) : new JsonSource(reader);
+
+        //Hand each full chunk to the pool and keep reading
+        ArrayList<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        ArrayList<Row> rows = new ArrayList<>(CHUNK_SIZE);
+        int count = 0;
+        for (Row r = source.next(); r != null; r = source.next()) {
+            rows.add(r);
+            count++;
+            if (rows.size() == CHUNK_SIZE) {
+                tasks.add(pool.submit(new ConvertTask(rows)));
+                rows = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!rows.isEmpty())
+            tasks.add(pool.submit(new ConvertTask(rows)));
+
+        //Collect in input order, keeping the first of each category and name
+        ArrayList<AutoPageType> batch = new ArrayList<>(count);
+        ArrayList<RowError> errors = new ArrayList<>();
+        HashSet<AutoPageType> seen = new HashSet<>(count * 4 / 3 + 1);  //types are equal by category and name
+        int duplicates = 0;
+        for (ForkJoinTask<Chunk> t : tasks) {
+            Chunk c = t.join();
+            errors.addAll(c.errors);
+            for (AutoPageType type : c.types) {
+                if (type == null)
+                    continue;
+                if (seen.add(type))
+                    batch.add(type);
+                else
+                    duplicates++;
+            }
+        }
+
+        int added = AutoPageType.addTypes(batch);
+        return new Result(count, added, duplicates + batch.size() - added, errors);
+    }
+
+    /**
+     * Convert a row to a type
+     * @param r the row
+     * @return the type
+     * @throws IllegalArgumentException with the reason if the row is not a valid type
+     */
+    private static AutoPageType convert(Row r) {
+        if (r.error != null)
+            throw new IllegalArgumentException(r.error);
+
+        String category = required(r, CATEGORY);
+        String name = required(r, NAME);
+        double width = dimension(r, WIDTH);
+        double height = dimension(r, HEIGHT);
+
+        String abbr = required(r, UNIT);
+        PageMeasureUnit unit;
+        try {
+            unit = PageMeasureUnit.valueOf(abbr);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("unknown unit \"" + abbr + "\"", ex);
+        }
+        return new AutoPageType(category, name, width, height, unit);
+    }
+
+    private static String required(Row r, int field) {
+        String v = r.fields[field] == null ? "" : r.fields[field].trim();
+        if (v.isEmpty())
+            throw new IllegalArgumentException("missing " + FIELDS[field]);
+        return v;
+    }
+
+    private static double dimension(Row r, int field) {
+        String v = required(r, field);
+        double d;
+        try {
+            d = Double.parseDouble(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(FIELDS[field] + " \"" + v + "\" is not a number", ex);
+        }
+        if (!(d > 0) || Double.isInfinite(d))
+            throw new IllegalArgumentException(FIELDS[field] + " must be positive");
+        return d;
+    }
+
+    private static int field(String name) {
+        String n = name.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equals(n))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads CSV records, as described in RFC 4180, with an optional header row
+     */
+    private static final class CsvSource implements RowSource {
+        private final BufferedReader in;
+        private int line = 1;
+        private int[] columns = {CATEGORY, NAME, WIDTH, HEIGHT, UNIT};  //the field of each column, -1 to ignore
+        private boolean first = true;
+        private int pending = -2;  //a character read ahead, -2 if none
+
+        private CsvSource(BufferedReader in) {
+            this.in = in;
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            int c = in.read();
+            if (first && c == '\uFEFF' && line == 1)  //a byte order mark
+                c = in.read();
+            return c;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            while (true) {
+                Row r = new Row(line);
+                ArrayList<String> values = readRecord(r);
+                if (values == null)
+                    return null;
+                if (values.size() == 1 && values.get(0).trim().isEmpty())  //blank line
+                    continue;
+
+                if (first) {
+                    first = false;
+                    if (isHeader(values))
+                        continue;
+                }
+
+                for (int i = 0; i < values.size() && i < columns.length; i++) {
+                    if (columns[i] >= 0)
+                        r.fields[columns[i]] = values.get(i);
+                }
+                return r;
+            }
+        }
+
+        /**
+         * Check whether a record is a header row, and if so, take the column order from it
+         */
+        private boolean isHeader(ArrayList<String> values) throws IOException {
+            int[] c = new int[values.size()];
+            boolean[] present = new boolean[FIELDS.length];
+            for (int i = 0; i < c.length; i++) {
+                c[i] = field(values.get(i));
+                if (c[i] >= 0)
+                    present[c[i]] = true;
+            }
+            if (!present[WIDTH] || !present[HEIGHT])  //a data row, with numbers in these columns
+                return false;
+
+            for (int f = 0; f < FIELDS.length; f++) {
+                if (!present[f])
+                    throw new IOException("line 1: the header has no " + FIELDS[f] + " column");
+            }
+            columns = c;
+            return true;
+        }
+
+        /**
+         * Read the fields of a record, up to and including its line break
+         * @return the fields, or null at the end of the input
+         */
+        private ArrayList<String> readRecord(Row r) throws IOException {
+            ArrayList<String> values = new ArrayList<>(FIELDS.length);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    if (!any)
+                        return null;
+                    if (quoted)
+                        r.error = "unterminated quoted field";
+                    values.add(field.toString());
+                    return values;
+                }
+                any = true;
+
+                if (quoted) {
+                    if (c == '"') {
+                        int d = read();
+                        if (d == '"')  //an escaped quote
+                            field.append('"');
+                        else {
+                            quoted = false;
+                            pending = d;
+                        }
+                    } else {
+                        if (c == '\n' || (c == '\r' && peekNot('\n')))
+                            line++;
+                        field.append((char)c);
+                    }
+                } else if (c == '"' && field.length() == 0)
+                    quoted = true;
+                else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int d = read();
+                        if (d != '\n')
+                            pending = d;
+                    }
+                    line++;
+                    values.add(field.toString());
+                    return values;
+                } else
+                    field.append((char)c);
+            }
+        }
+
+        private boolean peekNot(int expected) throws IOException {
+            pending = in.read();
+            return pending != expected;
+        }
+    }
+
+    /**
+     * Reads JSON objects from an array, or one after another
+     */
+    private static final class JsonSource implements RowSource {
+        private final BufferedReader in;
+        private int line = 1;
+        private int pending = -2;  //a character read ahead, -2 if none
+        private boolean started = false;
+        private boolean array = false;
+        private boolean afterFirst = false;
+        private boolean done = false;
+
+        private JsonSource(BufferedReader in) {
+            this.in = in;
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (pending != -2) {
+                c = pending;
+                pending = -2;
+            } else
+                c = in.read();
+            if (c == '\n')
+                line++;
+            return c;
+        }
+
+        private void unread(int c) {
+            if (c == '\n')
+                line--;
+            pending = c;
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\uFEFF');  //and a byte order mark
+            return c;
+        }
+
+        private IOException error(String message) {
+            return new IOException("line " + line + ": " + message);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (done)
+                return null;
+
+            int c = skipWhitespace();
+            if (!started) {
+                started = true;
+                if (c == '[') {
+                    array = true;
+                    c = skipWhitespace();
+                    if (c == ']')
+                        return end();
+                    afterFirst = true;
+                }
+            }
+
+            if (array) {
+                if (!afterFirst) {
+                    if (c == ']')
+                        return end();
+                    if (c != ',')
+                        throw error("expected , or ] after an object");
+                    c = skipWhitespace();
+                }
+                afterFirst = false;
+                if (c == -1)
+                    throw error("unterminated array");
+            } else if (c == -1) {
+                done = true;
+                return null;
+            }
+
+            if (c != '{')
+                throw error("expected an object");
+            return readObject();
+        }
+
+        private Row end() throws IOException {
+            done = true;
+            if (skipWhitespace() != -1)
+                throw error("unexpected content after the array");
+            return null;
+        }
+
+        private Row readObject() throws IOException {
+            Row r = new Row(line);
+            int c = skipWhitespace();
+            if (c == '}')
+                return r;
+
+            while (true) {
+                if (c != '"')
+                    throw error("expected a key");
+                String key = readString();
+                if (skipWhitespace() != ':')
+                    throw error("expected : after \"" + key + "\"");
+
+                int f = FIELDS.length;
+                for (int i = 0; i < FIELDS.length; i++) {
+                    if (FIELDS[i].equals(key))
+                        f = i;
+                }
+
+                c = skipWhitespace();
+                if (c == '{' || c == '[') {
+                    skipNested(c);
+                    if (f < FIELDS.length && r.error == null)
+                        r.error = FIELDS[f] + " must be a string or number";
+                } else {
+                    String value = readScalar(c);
+                    if (f < FIELDS.length)
+                        r.fields[f] = value;
+                }
+
+                c = skipWhitespace();
+                if (c == '}')
+                    return r;
+                if (c != ',')
+                    throw error("expected , or } in an object");
+                c = skipWhitespace();
+            }
+        }
+
+        /**
+         * Read a string, number or literal
+         * @return the text of the value, or null for null
+         */
+        private String readScalar(int c) throws IOException {
+            if (c == '"')
+                return readString();
+
+            StringBuilder sb = new StringBuilder();
+            while (c != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+                sb.append((char)c);
+                c = read();
+            }
+            unread(c);
+
+            String v = sb.toString();
+            if (v.isEmpty())
+                throw error("expected a value");
+            return v.equals("null") ? null : v;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1)
+                    throw error("unterminated string");
+                if (c == '"')
+                    return sb.toString();
+                if (c != '\\') {
+                    sb.append((char)c);
+                    continue;
+                }
+
+                c = read();
+                switch (c) {
+                    case '"': case '\\': case '/': sb.append((char)c); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int d = Character.digit(read(), 16);
+                            if (d < 0)
+                                throw error("invalid \\u escape");
+                            code = code * 16 + d;
+                        }
+                        sb.append((char)code);
+                        break;
+                    default:
+                        throw error("invalid escape");
+                }
+            }
+        }
+
+        /**
+         * Skip an object or array whose opening character was read
+         */
+        private void skipNested(int open) throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                int c = read();
+                if (c == -1)
+                    throw error("unterminated " + (open == '{' ? "object" : "array"));
+                if (c == '"')
+                    readString();
+                else if (c == '{' || c == '[')
+                    depth++;
+                else if (c == '}' || c == ']')
+                    depth--;
+            }
+        }
+    }
+
+}
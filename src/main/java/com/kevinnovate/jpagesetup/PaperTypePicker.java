@@ -0,0 +1,209 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * A type-ahead picker for AutoPageTypes, an alternative to the auto paper menu for large catalogs.  The user types any part
+ * of the name, category or dimensions, and the matching types are listed as they type.
+ *
+ * The list has a fixed cell height and a model that maps rows to the search result, so only the visible rows are ever
+ * measured or rendered, no matter how many types match.
+ *
+ * @author com.kevinnovate
+ */
+final class PaperTypePicker extends javax.swing.JDialog {
+
+    /**
+     * Presents a search result as a list, creating no per-row objects
+     */
+    private static final class ResultModel extends AbstractListModel<AutoPageType> {
+        private List<AutoPageType> types;
+        private int[] rows = new int[0];
+
+        private void setResult(List<AutoPageType> t, int[] r) {
+            int old = rows.length;
+            types = t;
+            rows = r;
+            if (old > 0)
+                fireIntervalRemoved(this, 0, old - 1);
+            if (r.length > 0)
+                fireIntervalAdded(this, 0, r.length - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return rows.length;
+        }
+
+        @Override
+        public AutoPageType getElementAt(int index) {
+            return types.get(rows[index]);
+        }
+    }
+
+    private static final int REFINE_LIMIT = 4096;
+    private static final int CELL_WIDTH = 480;
+
+    private final PageTypeSearchIndex index;
+    private final Consumer<AutoPageType> selectionHandler;
+    private final ResultModel model = new ResultModel();
+    private final JTextField filterField = new JTextField(30);
+    private final JList<AutoPageType> resultList = new JList<>(model);
+    private final JLabel countLabel = new JLabel();
+
+    private String lastQuery = "";
+    private int[] lastResult;
+
+    /**
+     * Create the picker
+     * @param owner the owning window
+     * @param handler receives the type the user picks, on the Swing thread
+     */
+    PaperTypePicker(Window owner, Consumer<AutoPageType> handler) {
+        super(owner, "Find Paper Size", ModalityType.APPLICATION_MODAL);
+
+        index = AutoPageType.getSearchIndex();
+        selectionHandler = handler;
+
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setFixedCellHeight(new JLabel("Xy").getPreferredSize().height + 4);  //never measure the rows
+        resultList.setFixedCellWidth(CELL_WIDTH);
+        resultList.setVisibleRowCount(15);
+        resultList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int i, boolean selected, boolean focus) {
+                AutoPageType t = (AutoPageType)value;
+                super.getListCellRendererComponent(list, t + "  -  " + t.getCategory() + "  (" + t.getDimensionString() + ")", i, selected, focus);
+                return this;
+            }
+        });
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2)
+                    pick();
+            }
+        });
+
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateResult();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateResult();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {}
+        });
+
+        //Up and down in the filter field move the list selection, Enter picks the selection
+        filterField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "Next");
+        filterField.getActionMap().put("Next", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moveSelection(1);
+            }
+        });
+        filterField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "Previous");
+        filterField.getActionMap().put("Previous", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moveSelection(-1);
+            }
+        });
+        filterField.addActionListener((ActionEvent e) -> pick());
+
+        JPanel content = new JPanel(new BorderLayout(0, 5));
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(filterField, BorderLayout.NORTH);
+        content.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        content.add(countLabel, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        content.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "Escape");
+        content.getActionMap().put("Escape", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        updateResult();
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    /**
+     * Filter the types by the text in the filter field
+     */
+    private void updateResult() {
+        String query = filterField.getText();
+
+        //When the user extends the query, only the previous matches can still match. Examine them if there are few, 
+        //otherwise the trigram index narrows the candidates faster
+        int[] result;
+        if (lastResult != null && lastResult.length <= REFINE_LIMIT && query.startsWith(lastQuery))
+            result = index.refine(lastResult, query);
+        else
+            result = index.search(query);
+
+        lastQuery = query;
+        lastResult = result;
+
+        model.setResult(index.getTypes(), result);
+        if (result.length > 0)
+            resultList.setSelectedIndex(0);
+        countLabel.setText(result.length + " of " + index.size() + " paper sizes");
+    }
+
+    private void moveSelection(int delta) {
+        int size = model.getSize();
+        if (size == 0)
+            return;
+
+        int i = Math.max(0, Math.min(size - 1, resultList.getSelectedIndex() + delta));
+        resultList.setSelectedIndex(i);
+        resultList.ensureIndexIsVisible(i);
+    }
+
+    /**
+     * Pass the selected type to the handler and close
+     */
+    private void pick() {
+        AutoPageType t = resultList.getSelectedValue();
+        if (t == null)
+            return;
+
+        dispose();
+        selectionHandler.accept(t);
+    }
+
+}
@@ -0,0 +1,216 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PrinterJob;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+
+/**
+ * Discovers the available print services on a background thread and keeps them in a process-wide cache, so that
+ * opening the PageSetupDialog never blocks the Swing thread while printers are enumerated.
+ *
+ * The cache expires after a time-to-live, after which the next call to discover() starts a new lookup. A lookup can
+ * also be forced with refresh().  Only one lookup runs at a time; callers that request a discovery while one is
+ * running are attached to it.
+ *
+ * The default print service is cached alongside, so that validating for the default printer does not look it up each
+ * time. It is looked up again by each discovery, and on first use after a lookup made elsewhere or after the time-to-live.
+ *
+ * @author com.kevinnovate
+ */
+final class PrintServiceDiscovery {
+
+    /**
+     * Receives the results of a discovery. All callbacks are made on the discovery thread.
+     */
+    interface Listener {
+
+        /**
+         * Called once for each print service found by the discovery
+         * @param s the discovered service
+         */
+        void serviceFound(PrintService s);
+
+        /**
+         * Called when the discovery completes
+         * @param all all services found, in lookup order, or those of the last discovery if the lookup failed
+         */
+        void discoveryFinished(PrintService[] all);
+    }
+
+    private static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor((Runnable r) -> {
+        Thread t = new Thread(r, "jPageSetup-PrintServiceDiscovery");
+        t.setDaemon(true);  //never keep the application alive
+        return t;
+    });
+
+    private static final ArrayList<Listener> listeners = new ArrayList<>();  //listeners of the running discovery, guarded by the class lock
+    private static volatile PrintService[] cached = new PrintService[0];
+    private static long discoveredAt;  //System.nanoTime() of the last completed discovery
+    private static boolean valid = false;   //true once a discovery has completed and until refresh() is called
+    private static boolean running = false;
+    private static long timeToLive = DEFAULT_TIME_TO_LIVE;
+    private static PrintService defaultService;  //null if there are no printers
+    private static long defaultAt;  //System.nanoTime() of the last lookup of the default service
+    private static boolean defaultValid = false;
+
+    private PrintServiceDiscovery() {}
+
+    /**
+     * Get the print services found by the last completed discovery. This method never blocks.
+     * @return a copy of the cached services, empty if no discovery has completed yet
+     */
+    static PrintService[] getCached() {
+        return cached.clone();
+    }
+
+    /**
+     * Get the default print service, looking it up only if it was not looked up within the time to live. This method
+     * blocks while the default service is looked up.
+     * @return the default service, or null if there are no printers
+     */
+    static PrintService getDefault() {
+        synchronized (PrintServiceDiscovery.class) {
+            if (defaultValid && System.nanoTime() - defaultAt <= TimeUnit.MILLISECONDS.toNanos(timeToLive))
+                return defaultService;
+        }
+
+        PrintService s = PrintServiceLookup.lookupDefaultPrintService();  //outside the lock, it may take a round trip
+        setDefault(s);
+        return s;
+    }
+
+    private static synchronized void setDefault(PrintService s) {
+        defaultService = s;
+        defaultAt = System.nanoTime();
+        defaultValid = true;
+    }
+
+    /**
+     * Set how long a completed discovery remains valid
+     * @param ttl the time to live, in milliseconds
+     */
+    static synchronized void setTimeToLive(long ttl) {
+        if (ttl < 0)
+            throw new IllegalArgumentException("Time to live cannot be negative");
+        timeToLive = ttl;
+    }
+
+    /**
+     * Check whether the cached services are missing or older than the time to live
+     * @return true if a new discovery is needed
+     */
+    static synchronized boolean isExpired() {
+        return !valid || System.nanoTime() - discoveredAt > TimeUnit.MILLISECONDS.toNanos(timeToLive);
+    }
+
+    /**
+     * Start a discovery in the background if the cache has expired, or attach to the one already running.
+     * @param l the listener to notify of results, may be null
+     * @return true if the listener will be notified, false if the cache is still valid and no discovery was needed
+     */
+    static synchronized boolean discover(Listener l) {
+        if (!running && !isExpired())
+            return false;
+
+        start(l);
+        return true;
+    }
+
+    /**
+     * Discard the cache validity and start a new discovery, or attach to the one already running
+     * @param l the listener to notify of results, may be null
+     */
+    static synchronized void refresh(Listener l) {
+        valid = false;
+        defaultValid = false;
+        start(l);
+    }
+
+    /**
+     * Replace the cached services with the result of a lookup made elsewhere, such as by the PrintServiceWatcher, and
+     * restart the time to live. A discovery that is running is not affected and publishes its own result when it finishes.
+     * The default service is looked up again on its next use, as it may be among the services that changed.
+     * @param found the services found
+     */
+    static synchronized void publish(PrintService[] found) {
+        cached = found.clone();
+        discoveredAt = System.nanoTime();
+        valid = true;
+        defaultValid = false;
+    }
+
+    /**
+     * Stop notifying a listener of the running discovery
+     * @param l the listener to remove
+     */
+    static synchronized void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    private static void start(Listener l) {
+        if (l != null && !listeners.contains(l))
+            listeners.add(l);
+
+        if (!running) {
+            running = true;
+            executor.execute(PrintServiceDiscovery::lookup);
+        }
+    }
+
+    private static synchronized Listener[] getListeners() {
+        return listeners.toArray(new Listener[listeners.size()]);
+    }
+
+    /**
+     * Run on the discovery thread: look up the services and stream them to the listeners, then publish the result. If the
+     * lookup fails, the listeners finish with the services of the last discovery.
+     */
+    private static void lookup() {
+
+        PrintService[] found;
+        try {
+            found = PrinterJob.lookupPrintServices();
+        } catch (RuntimeException ex) {  //a failing lookup should not leave the discovery marked as running
+            found = null;
+        }
+
+        if (found != null) {
+            try {
+                setDefault(PrintServiceLookup.lookupDefaultPrintService());
+            } catch (RuntimeException ex) {
+                //looked up again on first use
+            }
+        }
+
+        if (found != null) {
+            for (PrintService s : found) {
+                for (Listener l : getListeners())
+                    l.serviceFound(s);
+            }
+        }
+
+        Listener[] finished;
+        synchronized (PrintServiceDiscovery.class) {
+            if (found != null) {
+                cached = found;
+                discoveredAt = System.nanoTime();
+                valid = true;
+            } else
+                found = cached;  //keep the last services, and leave the cache expired so the next dialog tries again
+            running = false;
+            finished = listeners.toArray(new Listener[listeners.size()]);
+            listeners.clear();
+        }
+
+        for (Listener l : finished)
+            l.discoveryFinished(found.clone());
+    }
+
+}
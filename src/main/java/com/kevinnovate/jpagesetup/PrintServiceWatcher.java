@@ -0,0 +1,253 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import javax.print.attribute.standard.PrinterMessageFromOperator;
+import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.PrinterStateReasons;
+import javax.print.attribute.standard.QueuedJobCount;
+
+/**
+ * Watches the available print services for printers that are added, removed or reconfigured. Once started, the watcher
+ * looks up the services on a schedule, compares them with the previous lookup, and notifies its listeners of the
+ * differences only, so that printer lists and caches can be updated incrementally rather than rebuilt.
+ *
+ * A service is reported as changed when its attributes differ from the previous lookup, apart from those that follow the
+ * printer's activity rather than its configuration, such as its state and queued job count. Before the listeners are
+ * notified, the cached validation results, printer models, capability snapshots and PrinterJobs of removed and changed
+ * services are discarded, and each lookup replaces the printers cached by the background discovery, so that dialogs
+ * opened while the watcher runs need no discovery of their own.
+ *
+ * Open PageSetupDialogs listen to the shared watcher, which only polls once the application starts it:
+ * PrintServiceWatcher.getShared().start(30, TimeUnit.SECONDS)
+ *
+ * @author com.kevinnovate
+ */
+public final class PrintServiceWatcher {
+
+    /**
+     * Receives the differences found by the watcher. All callbacks are made on the watcher thread, or on the thread
+     * calling poll(), in the order the services were looked up.
+     */
+    public interface Listener {
+
+        /**
+         * Called for a service that was not present in the previous lookup
+         * @param s the new service
+         */
+        void serviceAdded(PrintService s);
+
+        /**
+         * Called for a service of the previous lookup that is no longer present
+         * @param s the removed service
+         */
+        void serviceRemoved(PrintService s);
+
+        /**
+         * Called for a service whose attributes changed since the previous lookup
+         * @param s the changed service
+         */
+        void serviceChanged(PrintService s);
+    }
+
+    //Attributes that change with the printer's activity rather than its configuration, also left out of the fingerprints
+    //of the PrinterCapabilityCache
+    static final Set<Class<?>> VOLATILE = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(QueuedJobCount.class,
+            PrinterIsAcceptingJobs.class, PrinterState.class, PrinterStateReasons.class, PrinterMessageFromOperator.class)));
+
+    private static final PrintServiceWatcher shared = new PrintServiceWatcher(() ->
+            PrintServiceLookup.lookupPrintServices(DocFlavor.SERVICE_FORMATTED.PAGEABLE, null));  //the services PrinterJob accepts
+
+    /**
+     * Get the watcher the PageSetupDialogs listen to
+     * @return the shared watcher
+     */
+    public static PrintServiceWatcher getShared() {
+        return shared;
+    }
+
+    private final Supplier<PrintService[]> lookup;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object pollLock = new Object();
+    private Map<PrintService, PrintServiceAttributeSet> previous = new LinkedHashMap<>();  //guarded by pollLock
+    private ScheduledExecutorService scheduler;  //guarded by this, null when stopped
+
+    /**
+     * Create a watcher
+     * @param lookup supplies the current services for each poll
+     */
+    PrintServiceWatcher(Supplier<PrintService[]> lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Start polling on a daemon thread, first right away and then at a fixed delay after each poll. A watcher that is
+     * already running is rescheduled. The first poll after creation reports every service as added.
+     * @param period the delay between polls
+     * @param unit the unit of the delay
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Poll period must be positive");
+
+        if (scheduler != null)
+            scheduler.shutdown();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+            Thread t = new Thread(r, "jPageSetup-PrintServiceWatcher");
+            t.setDaemon(true);  //never keep the application alive
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, 0, period, unit);
+    }
+
+    /**
+     * Stop polling. A poll in progress completes. The services of the last poll are kept, so that a restarted watcher
+     * reports only the differences since then.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Check whether the watcher is polling on a schedule
+     * @return true if started and not stopped
+     */
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Start notifying a listener of differences
+     * @param l the listener to add
+     */
+    public void addListener(Listener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    /**
+     * Stop notifying a listener
+     * @param l the listener to remove
+     */
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Get the services found by the last poll
+     * @return the services, in lookup order, empty if the watcher has not polled yet
+     */
+    public PrintService[] getServices() {
+        synchronized (pollLock) {
+            return previous.keySet().toArray(new PrintService[previous.size()]);
+        }
+    }
+
+    /**
+     * Look up the services now and report the differences to the previous lookup. This method blocks while the services
+     * are looked up, and may be called whether or not the watcher is running.
+     */
+    public void poll() {
+        synchronized (pollLock) {
+
+            PrintService[] found = lookup.get();
+            LinkedHashMap<PrintService, PrintServiceAttributeSet> current = new LinkedHashMap<>(found.length * 2);
+            List<PrintService> added = new ArrayList<>();
+            List<PrintService> changed = new ArrayList<>();
+
+            for (PrintService s : found) {
+                PrintServiceAttributeSet attributes = snapshot(s);
+                current.put(s, attributes);
+
+                PrintServiceAttributeSet before = previous.get(s);
+                if (before == null)
+                    added.add(s);
+                else if (!before.equals(attributes))
+                    changed.add(s);
+            }
+
+            List<PrintService> removed = new ArrayList<>();
+            for (PrintService s : previous.keySet()) {
+                if (!current.containsKey(s))
+                    removed.add(s);
+            }
+
+            previous = current;
+            PrintServiceDiscovery.publish(found);
+
+            //Discard what is cached for the services before anyone reacts to the change
+            for (PrintService s : removed)
+                invalidate(s);
+            for (PrintService s : changed)
+                invalidate(s);
+
+            for (Listener l : listeners) {
+                for (PrintService s : added)
+                    l.serviceAdded(s);
+                for (PrintService s : removed)
+                    l.serviceRemoved(s);
+                for (PrintService s : changed)
+                    l.serviceChanged(s);
+            }
+        }
+    }
+
+    /**
+     * Run on the watcher thread: an exception would cancel the schedule, so a failing poll is skipped instead
+     */
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException ex) {
+            //try again at the next poll
+        }
+    }
+
+    /**
+     * Copy the attributes of a service that indicate a change of the printer, leaving out the volatile ones
+     * @param s the service
+     * @return the copied attributes, empty if the service cannot report them
+     */
+    static PrintServiceAttributeSet snapshot(PrintService s) {
+        HashPrintServiceAttributeSet attributes = new HashPrintServiceAttributeSet();
+        try {
+            attributes.addAll(s.getAttributes());
+        } catch (RuntimeException ex) {  //a printer that went away may fail to answer
+            return attributes;
+        }
+        for (Class<?> category : VOLATILE)
+            attributes.remove(category);
+        return attributes;
+    }
+
+    private static void invalidate(PrintService s) {
+        ValidationCache.getShared().invalidate(s);
+        PrinterJobPool.getShared().invalidate(s);
+        PrinterValidator.invalidate(s);
+        PrinterCapabilityCache snapshots = PrinterCapabilityCache.getInstalled();
+        if (snapshots != null)
+            snapshots.invalidate(s);
+    }
+
+}
@@ -0,0 +1,495 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import javax.print.PrintService;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.standard.MediaPrintableArea;
+import javax.print.attribute.standard.MediaSize;
+import javax.print.attribute.standard.MediaSizeName;
+
+/**
+ * A model of what a printer can print on: its supported media sizes with the hardware margins of each, and the range of
+ * custom sizes it accepts.  A PageFormat can be validated against the model in microseconds, without a PrinterJob, and the
+ * model can stand in for a real printer through a SimulatedPrintService.
+ *
+ * Dimensions are in PageFormat units (1/72th of an inch), with sizes in portrait orientation. Instances are immutable.
+ *
+ * A model can be loaded from a properties file. Dimensions in the file are in the given unit (the abbreviation of any
+ * registered PageMeasureUnit, such as in, mm, or pt), and margins are listed as left, top, right, bottom:
+ *
+ * <pre>
+ * name = Office Laser
+ * unit = mm
+ * default = A4
+ * media.A4.size = 210 297
+ * media.A4.margins = 4.2 4.2 4.2 4.2
+ * media.Letter.size = 215.9 279.4
+ * media.Letter.margins = 4.2 4.2 4.2 4.2
+ * custom.min = 76 127
+ * custom.max = 216 356
+ * custom.margins = 4.2 4.2 4.2 4.2
+ * </pre>
+ *
+ * The custom entries are optional; without them the printer accepts only its listed media.
+ *
+ * @author com.kevinnovate
+ */
+public final class PrinterCapabilities {
+
+    /**
+     * The largest difference, in PageFormat units, between a paper size and a media size for the paper to be printed on that media.
+     * It is the tolerance of PageFormatEngine.check(), so snapping a paper to a media never makes the dialog refuse it.
+     */
+    public static final double MEDIA_TOLERANCE = PageFormatEngine.DEFAULT_TOLERANCE;
+
+    /**
+     * A supported media size and its hardware margins
+     */
+    public static final class Media {
+        private final String name;
+        private final double width, height;
+        private final double left, top, right, bottom;
+
+        /**
+         * Create a media size
+         * @param name the media name
+         * @param width the width in portrait orientation
+         * @param height the height in portrait orientation
+         * @param left the unprintable margin at the left
+         * @param top the unprintable margin at the top
+         * @param right the unprintable margin at the right
+         * @param bottom the unprintable margin at the bottom
+         */
+        public Media(String name, double width, double height, double left, double top, double right, double bottom) {
+            if (width <= 0 || height <= 0)
+                throw new IllegalArgumentException("Media \"" + name + "\" must have a positive size");
+
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getWidth() {
+            return width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+
+        public double getLeftMargin() {
+            return left;
+        }
+
+        public double getTopMargin() {
+            return top;
+        }
+
+        public double getRightMargin() {
+            return right;
+        }
+
+        public double getBottomMargin() {
+            return bottom;
+        }
+
+        /**
+         * Check whether a paper size is this media, within the MEDIA_TOLERANCE
+         * @param w the paper width
+         * @param h the paper height
+         * @return true if the sizes match
+         */
+        boolean matches(double w, double h) {
+            return Math.abs(w - width) <= MEDIA_TOLERANCE && Math.abs(h - height) <= MEDIA_TOLERANCE;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final String name;
+    private final List<Media> media;
+    private final Media defaultMedia;
+    private final double minWidth, minHeight, maxWidth, maxHeight;  //custom size range, all 0 if custom sizes are unsupported
+    private final double[] customMargins;   //left, top, right, bottom
+
+    /**
+     * Create a model for a printer that accepts only its listed media
+     * @param name the printer name
+     * @param media the supported media, which must not be empty
+     * @param defaultMedia the default media, one of the supported media
+     */
+    public PrinterCapabilities(String name, List<Media> media, Media defaultMedia) {
+        this(name, media, defaultMedia, 0, 0, 0, 0, new double[4]);
+    }
+
+    /**
+     * Create a model for a printer that also accepts custom sizes
+     * @param name the printer name
+     * @param media the supported media, which must not be empty
+     * @param defaultMedia the default media, one of the supported media
+     * @param minWidth the smallest custom width
+     * @param minHeight the smallest custom height
+     * @param maxWidth the largest custom width, 0 if custom sizes are unsupported
+     * @param maxHeight the largest custom height, 0 if custom sizes are unsupported
+     * @param customMargins the hardware margins of custom sizes: left, top, right, bottom
+     */
+    public PrinterCapabilities(String name, List<Media> media, Media defaultMedia,
+                               double minWidth, double minHeight, double maxWidth, double maxHeight, double[] customMargins) {
+        if (media.isEmpty())
+            throw new IllegalArgumentException("A printer must support at least one media");
+        if (!media.contains(defaultMedia))
+            throw new IllegalArgumentException("The default media must be a supported media");
+        if (customMargins.length != 4)
+            throw new IllegalArgumentException("Custom margins must be left, top, right, bottom");
+
+        this.name = name;
+        this.media = Collections.unmodifiableList(new ArrayList<>(media));
+        this.defaultMedia = defaultMedia;
+        this.minWidth = minWidth;
+        this.minHeight = minHeight;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.customMargins = customMargins.clone();
+    }
+
+    /**
+     * Load a model from a properties file
+     * @param file the file, in the format described in the class documentation
+     * @return the model
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static PrinterCapabilities load(Path file) throws IOException {
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Properties p = new Properties();
+            p.load(r);
+            return fromProperties(p, file.toString());
+        }
+    }
+
+    /**
+     * Load a model from a properties stream, for instance a resource
+     * @param in the stream, in the format described in the class documentation, which is not closed
+     * @return the model
+     * @throws IOException if the stream cannot be read or is malformed
+     */
+    public static PrinterCapabilities load(InputStream in) throws IOException {
+        Properties p = new Properties();
+        p.load(in);
+        return fromProperties(p, "stream");
+    }
+
+    static PrinterCapabilities fromProperties(Properties p, String source) throws IOException {
+
+        PageMeasureUnit unit = parseUnit(p.getProperty("unit", "pt"), source);
+        String name = p.getProperty("name", "Simulated Printer");
+
+        TreeSet<String> names = new TreeSet<>();  //in name order, as properties are unordered
+        for (String key : p.stringPropertyNames()) {
+            if (key.startsWith("media.") && key.endsWith(".size"))
+                names.add(key.substring("media.".length(), key.length() - ".size".length()));
+        }
+
+        ArrayList<Media> media = new ArrayList<>();
+        Media defaultMedia = null;
+        String defaultName = p.getProperty("default");
+        for (String n : names) {
+            double[] size = parseValues(p, "media." + n + ".size", 2, unit, source);
+            double[] margins = p.containsKey("media." + n + ".margins") ? parseValues(p, "media." + n + ".margins", 4, unit, source) : new double[4];
+            Media m = new Media(n, size[0], size[1], margins[0], margins[1], margins[2], margins[3]);
+            media.add(m);
+            if (n.equals(defaultName))
+                defaultMedia = m;
+        }
+
+        if (media.isEmpty())
+            throw new IOException(source + ": no media defined");
+        if (defaultMedia == null) {
+            if (defaultName != null)
+                throw new IOException(source + ": default media \"" + defaultName + "\" is not defined");
+            defaultMedia = media.get(0);
+        }
+
+        if (!p.containsKey("custom.max"))
+            return new PrinterCapabilities(name, media, defaultMedia);
+
+        double[] min = p.containsKey("custom.min") ? parseValues(p, "custom.min", 2, unit, source) : new double[2];
+        double[] max = parseValues(p, "custom.max", 2, unit, source);
+        double[] margins = p.containsKey("custom.margins") ? parseValues(p, "custom.margins", 4, unit, source) : new double[4];
+        return new PrinterCapabilities(name, media, defaultMedia, min[0], min[1], max[0], max[1], margins);
+    }
+
+    /**
+     * Build a model from the Media and MediaPrintableArea attributes a print service reports. Each supported media size
+     * becomes a media whose hardware margins are the edges of its largest printable area. The attributes do not describe
+     * the custom sizes a printer accepts, so the model accepts those within the extent of its media, from the narrowest
+     * and shortest to the widest and longest, with the margins of the default media.
+     *
+     * The model describes what the service reports, which is not always what PrinterJob.validatePage() does on the
+     * platform. PageSetupDialogs only validate against a model that reproduces validatePage() for the service.
+     *
+     * Querying the attributes can be slow for network printers, so keep the model rather than building it for each use.
+     * @param s the print service
+     * @return the model, or null if the service reports no media sizes with printable areas
+     */
+    public static PrinterCapabilities fromPrintService(PrintService s) {
+
+        Object supported = s.getSupportedAttributeValues(javax.print.attribute.standard.Media.class, null, null);
+        if (!(supported instanceof javax.print.attribute.standard.Media[]))
+            return null;
+
+        Object defaultName = s.getDefaultAttributeValue(javax.print.attribute.standard.Media.class);
+        ArrayList<Media> media = new ArrayList<>();
+        Media defaultMedia = null;
+        for (javax.print.attribute.standard.Media m : (javax.print.attribute.standard.Media[])supported) {
+            if (!(m instanceof MediaSizeName))  //trays and other media that are not sizes
+                continue;
+            MediaSize size = MediaSize.getMediaSizeForName((MediaSizeName)m);
+            if (size == null)
+                continue;
+
+            Object areas = s.getSupportedAttributeValues(MediaPrintableArea.class, null, new HashAttributeSet(m));
+            if (!(areas instanceof MediaPrintableArea[]) || ((MediaPrintableArea[])areas).length == 0)
+                continue;
+
+            float[] largest = null;  //x, y, w, h in inches
+            for (MediaPrintableArea a : (MediaPrintableArea[])areas) {
+                float[] r = a.getPrintableArea(MediaPrintableArea.INCH);
+                if (largest == null || r[2] * r[3] > largest[2] * largest[3])
+                    largest = r;
+            }
+
+            double w = size.getX(MediaSize.INCH) * 72.0;
+            double h = size.getY(MediaSize.INCH) * 72.0;
+            double left = Math.max(0, largest[0] * 72.0);
+            double top = Math.max(0, largest[1] * 72.0);
+            Media entry = new Media(m.toString(), w, h, left, top,
+                                    Math.max(0, w - left - largest[2] * 72.0), Math.max(0, h - top - largest[3] * 72.0));
+            media.add(entry);
+            if (m.equals(defaultName))
+                defaultMedia = entry;
+        }
+
+        if (media.isEmpty())
+            return null;
+        if (defaultMedia == null)
+            defaultMedia = media.get(0);
+
+        double minWidth = Double.MAX_VALUE, minHeight = Double.MAX_VALUE, maxWidth = 0, maxHeight = 0;
+        for (Media m : media) {
+            minWidth = Math.min(minWidth, m.width);
+            minHeight = Math.min(minHeight, m.height);
+            maxWidth = Math.max(maxWidth, m.width);
+            maxHeight = Math.max(maxHeight, m.height);
+        }
+
+        double[] margins = {defaultMedia.left, defaultMedia.top, defaultMedia.right, defaultMedia.bottom};
+        return new PrinterCapabilities(s.getName(), media, defaultMedia, minWidth, minHeight, maxWidth, maxHeight, margins);
+    }
+
+    /**
+     * Describe the model in the properties format read by load(), with dimensions in points at full precision
+     * @return new properties
+     */
+    Properties toProperties() {
+        Properties p = new Properties();
+        p.setProperty("name", name);
+        p.setProperty("unit", PageMeasureUnit.PT.abbr());
+        p.setProperty("default", defaultMedia.name);
+        for (Media m : media) {
+            p.setProperty("media." + m.name + ".size", m.width + " " + m.height);
+            p.setProperty("media." + m.name + ".margins", m.left + " " + m.top + " " + m.right + " " + m.bottom);
+        }
+        if (supportsCustomSizes()) {
+            p.setProperty("custom.min", minWidth + " " + minHeight);
+            p.setProperty("custom.max", maxWidth + " " + maxHeight);
+            p.setProperty("custom.margins", customMargins[0] + " " + customMargins[1] + " " + customMargins[2] + " " + customMargins[3]);
+        }
+        return p;
+    }
+
+    private static PageMeasureUnit parseUnit(String abbr, String source) throws IOException {
+        try {
+            return PageMeasureUnit.valueOf(abbr);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(source + ": unknown unit \"" + abbr + "\"", ex);
+        }
+    }
+
+    private static double[] parseValues(Properties p, String key, int count, PageMeasureUnit unit, String source) throws IOException {
+        String[] parts = p.getProperty(key).trim().split("\\s+");
+        if (parts.length != count)
+            throw new IOException(source + ": " + key + " must have " + count + " values");
+
+        double[] values = new double[count];
+        try {
+            for (int i = 0; i < count; i++)
+                values[i] = unit.toPFUnits(Double.parseDouble(parts[i]));
+        } catch (NumberFormatException ex) {
+            throw new IOException(source + ": " + key + " is not a number list", ex);
+        }
+        return values;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the supported media
+     * @return an unmodifiable list of the media
+     */
+    public List<Media> getMedia() {
+        return media;
+    }
+
+    public Media getDefaultMedia() {
+        return defaultMedia;
+    }
+
+    /**
+     * Check whether the printer accepts sizes other than its listed media
+     * @return true if custom sizes are supported
+     */
+    public boolean supportsCustomSizes() {
+        return maxWidth > 0 && maxHeight > 0;
+    }
+
+    /**
+     * Get the range of custom sizes
+     * @return the smallest width and height, then the largest width and height, all 0 if custom sizes are unsupported
+     */
+    double[] getCustomSizeRange() {
+        return new double[] {minWidth, minHeight, maxWidth, maxHeight};
+    }
+
+    /**
+     * Find the media for a paper size, in either orientation
+     * @param width the paper width
+     * @param height the paper height
+     * @return the media, or null if the size is not a supported media
+     */
+    public Media findMedia(double width, double height) {
+        for (Media m : media) {
+            if (m.matches(width, height) || m.matches(height, width))
+                return m;
+        }
+        return null;
+    }
+
+    /**
+     * Get the default page of the printer: its default media in portrait orientation, imageable within the hardware margins
+     * @return a new PageFormat
+     */
+    public PageFormat getDefaultPage() {
+        PageFormat f = new PageFormat();
+        Paper p = new Paper();
+        p.setSize(defaultMedia.width, defaultMedia.height);
+        p.setImageableArea(defaultMedia.left, defaultMedia.top,
+                           defaultMedia.width - (defaultMedia.left + defaultMedia.right),
+                           defaultMedia.height - (defaultMedia.top + defaultMedia.bottom));
+        f.setPaper(p);
+        return f;
+    }
+
+    /**
+     * Validate a PageFormat against the model, as PrinterJob.validatePage() does against a printer.  A paper that is a
+     * supported media takes that media's exact size. Otherwise a custom size is clamped to the custom size range, or if
+     * custom sizes are unsupported, the default media is used. The imageable area is then clamped to the hardware margins.
+     * @param f the format to validate, which is not modified
+     * @return a new, validated PageFormat with the same orientation
+     */
+    public PageFormat validate(PageFormat f) {
+
+        Paper in = f.getPaper();
+        double w = in.getWidth();
+        double h = in.getHeight();
+        double left, top, right, bottom;
+
+        Media m = findMedia(w, h);
+        if (m != null) {
+            boolean rotated = !m.matches(w, h);  //paper is given with the media's width as its height
+            w = rotated ? m.height : m.width;
+            h = rotated ? m.width : m.height;
+            if (rotated) {  //the margins turn with the media
+                left = m.bottom;
+                top = m.left;
+                right = m.top;
+                bottom = m.right;
+            } else {
+                left = m.left;
+                top = m.top;
+                right = m.right;
+                bottom = m.bottom;
+            }
+        } else if (supportsCustomSizes()) {
+            w = Math.max(minWidth, Math.min(maxWidth, w));
+            h = Math.max(minHeight, Math.min(maxHeight, h));
+            left = customMargins[0];
+            top = customMargins[1];
+            right = customMargins[2];
+            bottom = customMargins[3];
+        } else
+            return validate(getDefaultPageWith(f));
+
+        //Clamp the requested imageable area to the printable area of the paper
+        double x0 = Math.max(in.getImageableX(), left);
+        double y0 = Math.max(in.getImageableY(), top);
+        double x1 = Math.min(in.getImageableX() + in.getImageableWidth(), w - right);
+        double y1 = Math.min(in.getImageableY() + in.getImageableHeight(), h - bottom);
+        if (x1 <= x0 || y1 <= y0) {  //nothing of the requested area is printable, use the whole printable area
+            x0 = left;
+            y0 = top;
+            x1 = w - right;
+            y1 = h - bottom;
+        }
+
+        PageFormat out = new PageFormat();
+        out.setOrientation(f.getOrientation());
+        Paper p = new Paper();
+        p.setSize(w, h);
+        p.setImageableArea(x0, y0, x1 - x0, y1 - y0);
+        out.setPaper(p);
+        return out;
+    }
+
+    /**
+     * Get the default page in the orientation of a format
+     * @param f the format
+     * @return the default page
+     */
+    private PageFormat getDefaultPageWith(PageFormat f) {
+        PageFormat d = getDefaultPage();
+        d.setOrientation(f.getOrientation());
+        return d;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,424 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.standard.Media;
+
+/**
+ * Keeps what was learned about each printer in a directory across application runs: the printer model built from its
+ * attributes, its validated default page, and a fingerprint of its configuration. Working these out takes a round trip to
+ * the print system per media size, so once a cache is installed, later runs use the snapshots instead and start warm.
+ *
+ * A snapshot is used as soon as it is needed and is revalidated once per run in the background. When the printer's
+ * fingerprint no longer matches, the snapshot is rebuilt from the printer and rewritten, and what was derived from the old
+ * snapshot is discarded. Snapshots are written in the background, each to its own properties file, which is also a valid
+ * PrinterCapabilities file. A missing, outdated or unreadable file only means that the printer is queried again.
+ *
+ * Install a cache at startup to have the PageSetupDialog use it:
+ * PrinterCapabilityCache.install(new PrinterCapabilityCache(PrinterCapabilityCache.getDefaultDirectory()))
+ *
+ * @author com.kevinnovate
+ */
+public final class PrinterCapabilityCache {
+
+    private static final String VERSION = "2";  //snapshots of earlier versions hold models not checked against a PrinterJob
+    private static final String DEFAULT_KEY = "";  //the snapshot of the default printer
+    private static final String DEFAULT_FILE = "default.properties";
+
+    private static volatile PrinterCapabilityCache installed;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor((Runnable r) -> {
+        Thread t = new Thread(r, "jPageSetup-PrinterCapabilityCache");
+        t.setDaemon(true);  //never keep the application alive
+        return t;
+    });
+
+    /**
+     * What is known about one printer. Instances are immutable.
+     */
+    private static final class Snapshot {
+        private final String fingerprint;  //null until computed
+        private final Optional<PrinterCapabilities> capabilities;  //null if unknown, empty if the printer has no model
+        private final PageFormat defaultPage;  //null if unknown
+
+        private Snapshot(String fingerprint, Optional<PrinterCapabilities> capabilities, PageFormat defaultPage) {
+            this.fingerprint = fingerprint;
+            this.capabilities = capabilities;
+            this.defaultPage = defaultPage;
+        }
+    }
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<String> revalidated = ConcurrentHashMap.newKeySet();  //keys checked against their printer in this run
+
+    /**
+     * Get the cache directory in the user's home directory
+     * @return the directory path
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".jpagesetup", "printers");
+    }
+
+    /**
+     * Set the cache used by printer validation
+     * @param cache the cache, or null to stop using one
+     */
+    public static void install(PrinterCapabilityCache cache) {
+        installed = cache;
+    }
+
+    /**
+     * Get the cache used by printer validation
+     * @return the installed cache, or null if none
+     */
+    public static PrinterCapabilityCache getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Wait until the snapshots written and checked in the background so far are done, of every cache
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static void flush() throws InterruptedException {
+        try {
+            executor.submit(() -> {}).get();
+        } catch (ExecutionException ex) {  //an empty task does not fail
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Open a cache directory, creating it if needed, and read the snapshots in it. Unreadable snapshots and snapshots
+     * written by another version are skipped.
+     * @param directory the directory
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public PrinterCapabilityCache(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.properties")) {
+            for (Path f : files) {
+                Properties p = new Properties();
+                try (Reader r = Files.newBufferedReader(f, StandardCharsets.UTF_8)) {
+                    p.load(r);
+                } catch (IOException | IllegalArgumentException ex) {
+                    continue;
+                }
+                if (!VERSION.equals(p.getProperty("snapshot.version")))
+                    continue;
+
+                String key = f.getFileName().toString().equals(DEFAULT_FILE) ? DEFAULT_KEY : p.getProperty("snapshot.service");
+                Snapshot s = fromProperties(p, f.toString());
+                if (key != null && s != null)
+                    snapshots.put(key, s);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the number of printers with a snapshot, counting the default printer's
+     * @return the snapshot count
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * Discard the snapshot of a printer, in memory and on disk
+     * @param s the print service, null for the default printer
+     */
+    public void invalidate(PrintService s) {
+        discard(key(s));
+    }
+
+    /**
+     * Discard all snapshots, in memory and on disk
+     */
+    public void clear() {
+        for (String key : snapshots.keySet())
+            discard(key);
+    }
+
+    private void discard(String key) {
+        if (snapshots.remove(key) != null)
+            executor.execute(() -> delete(key));
+    }
+
+    /**
+     * Get the printer model from the snapshot of a service, and revalidate the snapshot in the background if it was not
+     * yet checked in this run
+     * @param s the print service
+     * @return the model, empty if the printer has none, or null if there is no snapshot of it
+     */
+    Optional<PrinterCapabilities> getCapabilities(PrintService s) {
+        if (s instanceof SimulatedPrintService)
+            return null;
+
+        Snapshot snap = snapshots.get(key(s));
+        if (snap == null || snap.capabilities == null)
+            return null;
+        revalidate(s, false);
+        return snap.capabilities;
+    }
+
+    /**
+     * Record the printer model built for a service
+     * @param s the print service
+     * @param c the model, or null if the printer has none
+     */
+    void putCapabilities(PrintService s, PrinterCapabilities c) {
+        if (s instanceof SimulatedPrintService)
+            return;
+
+        String key = key(s);
+        revalidated.add(key);  //built from the printer just now
+        snapshots.compute(key, (String k, Snapshot old) ->
+                new Snapshot(null, Optional.ofNullable(c), old == null ? null : old.defaultPage));
+        executor.execute(() -> write(key, s));
+    }
+
+    /**
+     * Get the validated default page from the snapshot of a service, and revalidate the snapshot in the background if it
+     * was not yet checked in this run
+     * @param s the print service, null for the default printer
+     * @return a copy of the page, or null if there is no snapshot of it
+     */
+    PageFormat getDefaultPage(PrintService s) {
+        if (s instanceof SimulatedPrintService)
+            return null;
+
+        Snapshot snap = snapshots.get(key(s));
+        if (snap == null || snap.defaultPage == null)
+            return null;
+        revalidate(s, false);
+        return (PageFormat)snap.defaultPage.clone();
+    }
+
+    /**
+     * Record the validated default page of a service
+     * @param s the print service, null for the default printer
+     * @param f the page, which is copied
+     */
+    void putDefaultPage(PrintService s, PageFormat f) {
+        if (s instanceof SimulatedPrintService)
+            return;
+
+        String key = key(s);
+        PageFormat copy = (PageFormat)f.clone();
+        revalidated.add(key);
+        snapshots.compute(key, (String k, Snapshot old) ->
+                new Snapshot(null, old == null ? null : old.capabilities, copy));
+        executor.execute(() -> write(key, s));
+    }
+
+    /**
+     * Check a snapshot against its printer in the background, rebuilding it if the printer's fingerprint changed
+     * @param s the print service, null for the default printer
+     * @param force true to check even if the snapshot was already checked in this run
+     */
+    void revalidate(PrintService s, boolean force) {
+        String key = key(s);
+        if (revalidated.add(key) || force)
+            executor.execute(() -> check(key, s));
+    }
+
+    /**
+     * Run on the cache thread: compare the fingerprint, and on a mismatch rebuild what the snapshot held
+     */
+    private void check(String key, PrintService s) {
+        Snapshot snap = snapshots.get(key);
+        if (snap == null || snap.fingerprint == null)  //gone, or just built from the printer with its write pending
+            return;
+
+        String current;
+        try {
+            current = fingerprint(s);
+        } catch (RuntimeException ex) {  //the printer cannot be reached now, keep the snapshot
+            return;
+        }
+        if (current.equals(snap.fingerprint))
+            return;
+
+        //Replace the model first and drop what was derived from the outdated one, so the default page is validated anew
+        Optional<PrinterCapabilities> capabilities = snap.capabilities == null ? null : Optional.ofNullable(PrinterValidator.buildModel(s));
+        snapshots.put(key, new Snapshot(current, capabilities, snap.defaultPage));
+        if (s != null) {
+            PrinterValidator.invalidate(s);
+            ValidationCache.getShared().invalidate(s);
+        }
+
+        if (snap.defaultPage != null)
+            snapshots.put(key, new Snapshot(current, capabilities, PrinterValidator.defaultPageUncached(s)));
+        write(key, s);
+    }
+
+    /**
+     * Run on the cache thread: write the current snapshot of a key, computing its fingerprint first if needed
+     */
+    private void write(String key, PrintService s) {
+        Snapshot snap = snapshots.get(key);
+        if (snap == null)
+            return;
+
+        if (snap.fingerprint == null) {
+            try {
+                Snapshot withPrint = new Snapshot(fingerprint(s), snap.capabilities, snap.defaultPage);
+                if (!snapshots.replace(key, snap, withPrint))
+                    return;  //replaced meanwhile, and that change has its own write queued
+                snap = withPrint;
+            } catch (RuntimeException ex) {
+                return;
+            }
+        }
+
+        Properties p = snap.capabilities != null && snap.capabilities.isPresent() ? snap.capabilities.get().toProperties() : new Properties();
+        p.setProperty("snapshot.version", VERSION);
+        p.setProperty("snapshot.fingerprint", snap.fingerprint);
+        if (!key.equals(DEFAULT_KEY))
+            p.setProperty("snapshot.service", key);
+        if (snap.capabilities != null)
+            p.setProperty("snapshot.model", Boolean.toString(snap.capabilities.isPresent()));
+        if (snap.defaultPage != null) {
+            double[] v = new double[PageFormatEngine.VALUE_COUNT];
+            PageFormatEngine.getValues(snap.defaultPage, v);
+            StringBuilder sb = new StringBuilder().append(snap.defaultPage.getOrientation());
+            for (double d : v)
+                sb.append(' ').append(d);
+            p.setProperty("snapshot.page", sb.toString());
+        }
+
+        Path file = file(key);
+        try {
+            Path tmp = Files.createTempFile(directory, "snapshot", ".tmp");
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                p.store(w, null);
+            }
+            try {  //readers in other processes never see a partly written file
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            //the cache is an optimization, the printer is queried again next run
+        }
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException ex) {
+            //an outdated file fails its revalidation next run
+        }
+    }
+
+    private static Snapshot fromProperties(Properties p, String source) {
+        String fingerprint = p.getProperty("snapshot.fingerprint");
+        if (fingerprint == null)
+            return null;
+
+        try {
+            Optional<PrinterCapabilities> capabilities = null;
+            String model = p.getProperty("snapshot.model");
+            if (model != null)
+                capabilities = Boolean.parseBoolean(model) ? Optional.of(PrinterCapabilities.fromProperties(p, source)) : Optional.empty();
+
+            PageFormat page = null;
+            String values = p.getProperty("snapshot.page");
+            if (values != null) {
+                String[] parts = values.trim().split("\\s+");
+                if (parts.length != PageFormatEngine.VALUE_COUNT + 1)
+                    return null;
+                double[] v = new double[PageFormatEngine.VALUE_COUNT];
+                for (int i = 0; i < v.length; i++)
+                    v[i] = Double.parseDouble(parts[i + 1]);
+                page = PageFormatEngine.create(Integer.parseInt(parts[0]), v);
+            }
+            return new Snapshot(fingerprint, capabilities, page);
+
+        } catch (IOException | RuntimeException ex) {  //a malformed snapshot is rebuilt from the printer
+            return null;
+        }
+    }
+
+    /**
+     * Compute a fingerprint of a printer's configuration: its attributes, apart from those that change with its
+     * activity, and its supported media. For the default printer, the fingerprint is that of the current default service.
+     * @param s the print service, null for the default printer
+     * @return the fingerprint, as hexadecimal
+     */
+    static String fingerprint(PrintService s) {
+        if (s == null)
+            s = PrintServiceLookup.lookupDefaultPrintService();
+        if (s == null)
+            return "none";
+
+        TreeMap<String, String> sorted = new TreeMap<>();  //attribute sets are unordered
+        for (Attribute a : s.getAttributes().toArray()) {
+            if (!PrintServiceWatcher.VOLATILE.contains(a.getCategory()))
+                sorted.put(a.getName(), a.toString());
+        }
+
+        StringBuilder sb = new StringBuilder(s.getName());
+        sorted.forEach((String n, String v) -> sb.append('\n').append(n).append('=').append(v));
+        Object media = s.getSupportedAttributeValues(Media.class, null, null);
+        if (media instanceof Media[]) {
+            for (Media m : (Media[])media)
+                sb.append('\n').append(m);
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {  //every Java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String key(PrintService s) {
+        return s == null ? DEFAULT_KEY : s.getName();
+    }
+
+    /**
+     * Get the file of a key: the printer name made safe for file systems, with a hash of the exact name to keep printers
+     * whose names differ only in unsafe characters apart
+     */
+    private Path file(String key) {
+        if (key.equals(DEFAULT_KEY))
+            return directory.resolve(DEFAULT_FILE);
+        String safe = key.replaceAll("[^A-Za-z0-9._-]", "_");
+        return directory.resolve("printer-" + safe + "-" + Integer.toHexString(key.hashCode()) + ".properties");
+    }
+
+}
@@ -0,0 +1,172 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.print.PrintService;
+
+/**
+ * A bounded pool of PrinterJobs already set to a print service.  Creating a PrinterJob and setting its print service
+ * queries the print system for the service's attributes each time (on Linux, a CUPS round trip), so validating against
+ * the same printer repeatedly is much cheaper with a job that was prepared before.
+ *
+ * A job is confined to the thread that acquired it until it is released: acquire a job, use it, and release it in a
+ * finally block. The pool keeps a few idle jobs for each of the most recently used services, and discards the idle jobs
+ * of a service when the service reports that its configuration has changed. Jobs for the default printer are pooled
+ * under the service that is the default when they are acquired, so they are not handed out after the default changes;
+ * the default service itself is cached by the PrintServiceDiscovery.
+ *
+ * @author com.kevinnovate
+ */
+public final class PrinterJobPool {
+
+    /**
+     * The number of idle jobs the shared pool keeps for each service
+     */
+    public static final int DEFAULT_JOBS_PER_SERVICE = 2;
+    /**
+     * The number of services the shared pool keeps idle jobs for
+     */
+    public static final int DEFAULT_SERVICES = 16;
+
+    private static final PrinterJobPool shared = new PrinterJobPool(DEFAULT_SERVICES, DEFAULT_JOBS_PER_SERVICE);
+
+    /**
+     * Get the pool used by the PageSetupDialog validation paths
+     * @return the shared pool
+     */
+    public static PrinterJobPool getShared() {
+        return shared;
+    }
+
+    private final int jobsPerService;
+    private final LinkedHashMap<PrintService, ArrayDeque<PrinterJob>> idle;  //guarded by this
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final ConfigurationListener attributeListener = new ConfigurationListener(this::invalidate);
+
+    /**
+     * Create a pool
+     * @param services the number of services to keep idle jobs for, after which the least recently used are evicted
+     * @param perService the number of idle jobs to keep for each service
+     */
+    public PrinterJobPool(int services, int perService) {
+        if (services <= 0 || perService <= 0)
+            throw new IllegalArgumentException("Pool sizes must be positive");
+
+        jobsPerService = perService;
+        idle = new LinkedHashMap<PrintService, ArrayDeque<PrinterJob>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PrintService, ArrayDeque<PrinterJob>> eldest) {
+                return size() > services;
+            }
+        };
+    }
+
+    /**
+     * Take a job set to a print service, preparing a new one if none is idle. The caller owns the job until it releases it.
+     * @param s the print service, null for the current default printer
+     * @return the job
+     * @throws PrinterException if the job cannot be set to the service
+     */
+    public PrinterJob acquire(PrintService s) throws PrinterException {
+        if (s == null)
+            s = PrintServiceDiscovery.getDefault();  //null if there are no printers, then nothing is pooled
+
+        PrinterJob job = null;
+        synchronized (this) {
+            ArrayDeque<PrinterJob> jobs = idle.get(s);
+            if (jobs != null)
+                job = jobs.poll();
+        }
+
+        if (job != null) {
+            hits.incrementAndGet();
+            return job;
+        }
+
+        misses.incrementAndGet();
+        job = PrinterJob.getPrinterJob();
+        if (s != null)
+            job.setPrintService(s);
+        return job;
+    }
+
+    /**
+     * Return a job to the pool. The caller must not use the job afterwards.
+     * @param s the print service the job was acquired for, null for the default printer
+     * @param job the job
+     */
+    public void release(PrintService s, PrinterJob job) {
+        if (s == null)
+            s = job.getPrintService();  //the default when the job was acquired
+        if (s == null)
+            return;
+
+        synchronized (this) {
+            ArrayDeque<PrinterJob> jobs = idle.computeIfAbsent(s, (PrintService k) -> new ArrayDeque<>(jobsPerService));
+            if (jobs.size() < jobsPerService)
+                jobs.push(job);
+        }
+
+        attributeListener.watch(s);  //discard the service's jobs if it reports a configuration change
+    }
+
+    /**
+     * Discard the idle jobs of a print service
+     * @param s the print service
+     */
+    public synchronized void invalidate(PrintService s) {
+        idle.remove(s);
+    }
+
+    /**
+     * Discard all idle jobs. The hit and miss counts are not reset.
+     */
+    public synchronized void clear() {
+        idle.clear();
+    }
+
+    /**
+     * Get the number of idle jobs
+     * @return the idle job count
+     */
+    public synchronized int size() {
+        int n = 0;
+        for (ArrayDeque<PrinterJob> jobs : idle.values())
+            n += jobs.size();
+        return n;
+    }
+
+    /**
+     * Get the number of acquisitions that reused an idle job
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of acquisitions that prepared a new job
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Get the fraction of acquisitions that reused an idle job
+     * @return the hit rate from 0 to 1, or 0 if no job was acquired yet
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double)h / total;
+    }
+
+}
@@ -0,0 +1,311 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import javax.print.PrintService;
+
+/**
+ * Validates PageFormats against printers on background threads.  Setting a print service on a PrinterJob and validating
+ * a page can take seconds for network printers, so the PageSetupDialog hands that work to this class and applies the
+ * result when the returned future completes.
+ *
+ * Where a print service reports the printable area of its media, a PrinterCapabilities model is built once from those
+ * attributes and compared with what a PrinterJob makes of the same pages. Only if the model reproduces the PrinterJob are
+ * pages validated against it, which avoids a PrinterJob for each validation. Other services, and the many platforms whose
+ * PrinterJob does not follow the reported attributes, are validated with a PrinterJob from the shared PrinterJobPool.
+ *
+ * Cancelling a returned future does not interrupt a validation that has already started, but its result is discarded.
+ *
+ * @author com.kevinnovate
+ */
+final class PrinterValidator {
+
+    private static final int THREADS = 2;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, (Runnable r) -> {
+        Thread t = new Thread(r, "jPageSetup-PrinterValidator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    //Models built from the attributes of print services, empty for services that report no printable areas
+    private static final ConcurrentHashMap<PrintService, Optional<PrinterCapabilities>> models = new ConcurrentHashMap<>();
+
+    //Rebuilds the model of a service whose configuration changes, and has its capability snapshot checked
+    private static final ConfigurationListener attributeListener = new ConfigurationListener((PrintService s) -> {
+        models.remove(s);
+        PrinterCapabilityCache cache = PrinterCapabilityCache.getInstalled();
+        if (cache != null)
+            cache.revalidate(s, true);
+    });
+
+    private PrinterValidator() {}
+
+    /**
+     * Get the model to validate against for a print service, building it from the service's attributes on first use.
+     * The model is rebuilt when the service reports a change of its configuration, but not of its activity.
+     * @param s the print service, null for the default printer
+     * @return the model, or null if pages for the service must be validated with a PrinterJob
+     */
+    static PrinterCapabilities getCapabilities(PrintService s) {
+        if (s == null)
+            return null;
+        if (s instanceof SimulatedPrintService)
+            return ((SimulatedPrintService)s).getCapabilities();
+
+        Optional<PrinterCapabilities> model = models.get(s);
+        if (model == null) {  //racing threads may each build one, which is harmless
+            PrinterCapabilityCache cache = PrinterCapabilityCache.getInstalled();
+            model = cache == null ? null : cache.getCapabilities(s);  //a snapshot from a previous run, checked in the background
+            if (model == null) {
+                model = Optional.ofNullable(buildModel(s));
+                if (cache != null)
+                    cache.putCapabilities(s, model.orElse(null));
+            }
+            models.putIfAbsent(s, model);
+            attributeListener.watch(s);
+        }
+        return model.orElse(null);
+    }
+
+    /**
+     * Build the model of a print service from its attributes, and check that it validates pages as a PrinterJob for the
+     * service does. This method blocks.
+     * @param s the print service
+     * @return the model, or null if the service reports no printable areas or its PrinterJob validates differently
+     */
+    static PrinterCapabilities buildModel(PrintService s) {
+        PrinterCapabilities model = PrinterCapabilities.fromPrintService(s);
+        if (model == null)
+            return null;
+
+        PrinterJobPool pool = PrinterJobPool.getShared();
+        PrinterJob job;
+        try {
+            job = pool.acquire(s);
+        } catch (PrinterException ex) {
+            return null;
+        }
+        try {
+            return reproduces(model, job::defaultPage, job::validatePage) ? model : null;
+        } catch (RuntimeException ex) {  //a driver that fails on a probe page, leave the printer to its PrinterJob
+            return null;
+        } finally {
+            pool.release(s, job);
+        }
+    }
+
+    /**
+     * Check whether a model validates pages as a printer does: the default page and each media, in both orientations, must
+     * come out the same within PageFormatEngine.DEFAULT_TOLERANCE, and so must custom sizes inside and outside the
+     * model's range, or a size that is not a media if the model has no custom sizes
+     * @param model the model
+     * @param defaultPage gets the printer's default page
+     * @param validatePage validates a page for the printer
+     * @return true if the model can be used in place of the printer
+     */
+    static boolean reproduces(PrinterCapabilities model, Supplier<PageFormat> defaultPage, UnaryOperator<PageFormat> validatePage) {
+
+        if (PageFormatEngine.check(model.getDefaultPage(), defaultPage.get()) == PageFormatEngine.Status.SIZE_CHANGED)
+            return false;
+
+        ArrayList<PageFormat> probes = new ArrayList<>();
+        for (PrinterCapabilities.Media m : model.getMedia()) {
+            probes.add(probe(m.getWidth(), m.getHeight()));
+            probes.add(probe(m.getHeight(), m.getWidth()));
+        }
+        if (model.supportsCustomSizes()) {
+            double[] range = model.getCustomSizeRange();  //min width, min height, max width, max height
+            probes.add(probe((range[0] + range[2]) / 2, (range[1] + range[3]) / 2));
+            probes.add(probe(range[0] / 2, range[1] / 2));
+            probes.add(probe(range[2] * 2, range[3] * 2));
+        } else
+            probes.add(probe(model.getDefaultMedia().getWidth() + 36, model.getDefaultMedia().getHeight() + 36));
+
+        for (PageFormat p : probes) {
+            if (PageFormatEngine.check(model.validate(p), validatePage.apply(p)) != PageFormatEngine.Status.VALID)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Create a portrait page without margins, as pages are validated
+     * @param width the paper width
+     * @param height the paper height
+     * @return a new PageFormat
+     */
+    private static PageFormat probe(double width, double height) {
+        Paper p = new Paper();
+        p.setSize(width, height);
+        PageFormat f = new PageFormat();
+        f.setPaper(withoutMargins(p));
+        return f;
+    }
+
+    /**
+     * Discard the model of a print service, so that it is rebuilt on next use
+     * @param s the print service
+     */
+    static void invalidate(PrintService s) {
+        models.remove(s);
+    }
+
+    /**
+     * From the provided PageFormat, validate against the limitations of the supplied printer. This method blocks.
+     * Where the service has a model, the page is validated against it without a PrinterJob.
+     * @param s the printer service to validate against.  Use null for the default printer.
+     * @param f the page format to validate. Use null for the default PageFormat for the supplied printer
+     * @return a validated, possibly changed PageFormat object that meets the limitations of the printer
+     */
+    static PageFormat validateForPrinter(PrintService s, PageFormat f)  {
+
+        if (f != null)
+            return validateUncached(s, f);
+
+        PrinterCapabilityCache cache = PrinterCapabilityCache.getInstalled();
+        PageFormat page = cache == null ? null : cache.getDefaultPage(s);  //a snapshot from a previous run, checked in the background
+        if (page == null) {
+            page = validateUncached(s, null);
+            if (cache != null)
+                cache.putDefaultPage(s, page);
+        }
+        return page;
+    }
+
+    /**
+     * Get the validated default page of a printer from the printer itself, bypassing the PrinterCapabilityCache
+     * @param s the printer service, null for the default printer
+     * @return the printer's validated default PageFormat
+     */
+    static PageFormat defaultPageUncached(PrintService s) {
+        return validateUncached(s, null);
+    }
+
+    private static PageFormat validateUncached(PrintService s, PageFormat f) {
+
+        PrinterCapabilities model = getCapabilities(s);
+        if (model != null) {
+            if (f == null)
+                f = model.getDefaultPage();
+            f.setPaper(withoutMargins(f.getPaper()));
+            return model.validate(f);
+        }
+
+        PrinterJobPool pool = PrinterJobPool.getShared();
+        PrinterJob job;
+        try {
+            job = pool.acquire(s);  //try and set the requested printer
+        } catch (PrinterException ex) {  //if that doesn't work, use default print service
+            s = null;
+            job = PrinterJob.getPrinterJob();
+        }
+
+        try {
+            if (f == null)
+                f = job.defaultPage();
+
+            //Get the default page format for printer, but remove margins. Seems to be a bug with the imageable area.
+            //instead, validate the format against the printer to get the minimum margins
+            f.setPaper(withoutMargins(f.getPaper()));
+            return job.validatePage(f);
+        } finally {
+            pool.release(s, job);
+        }
+    }
+
+    /**
+     * Get a paper of the same size whose imageable area is the whole paper
+     * @param paper the paper
+     * @return a new Paper
+     */
+    private static Paper withoutMargins(Paper paper) {
+        Paper p = new Paper();
+        p.setSize(paper.getWidth(), paper.getHeight());
+        p.setImageableArea(0, 0, paper.getWidth(), paper.getHeight());
+        return p;
+    }
+
+    /**
+     * Validate a PageFormat against a printer. Results are remembered in the shared ValidationCache. This method blocks
+     * unless the result is cached.
+     * @param s the printer service to validate against
+     * @param f the page format to validate, which is not modified
+     * @return the validated, possibly changed, PageFormat
+     * @throws PrinterException if the printer cannot be used
+     */
+    static PageFormat validate(PrintService s, PageFormat f) throws PrinterException {
+        
+        PageFormat validated = ValidationCache.getShared().get(s, f);
+        if (validated != null)
+            return validated;
+        return validateAndCache(s, f);
+    }
+
+    /**
+     * Validate a PageFormat against a printer without looking in the shared ValidationCache first, for callers that
+     * already did, and remember the result there. This method blocks.
+     * @param s the printer service to validate against
+     * @param f the page format to validate, which is not modified
+     * @return the validated, possibly changed, PageFormat
+     * @throws PrinterException if the printer cannot be used
+     */
+    static PageFormat validateAndCache(PrintService s, PageFormat f) throws PrinterException {
+
+        PageFormat validated;
+        PrinterCapabilities model = getCapabilities(s);
+        if (model != null)
+            validated = model.validate(f);
+        else {
+            PrinterJobPool pool = PrinterJobPool.getShared();
+            PrinterJob job = pool.acquire(s);
+            try {
+                validated = job.validatePage(f);
+            } finally {
+                pool.release(s, job);
+            }
+        }
+        
+        ValidationCache.getShared().put(s, f, validated);
+        return validated;
+    }
+
+    /**
+     * Validate a PageFormat against a printer in the background
+     * @param s the printer service to validate against
+     * @param f the page format to validate. A copy is validated, so the caller may continue to use it
+     * @return a future completing with the validated PageFormat, or exceptionally with the PrinterException
+     */
+    static CompletableFuture<PageFormat> validateAsync(PrintService s, PageFormat f) {
+        PageFormat copy = (PageFormat)f.clone();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return validate(s, copy);
+            } catch (PrinterException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get the default PageFormat for a printer with its minimum margins in the background
+     * @param s the printer service, null for the default printer
+     * @return a future completing with the printer's validated default PageFormat
+     */
+    static CompletableFuture<PageFormat> defaultPageAsync(PrintService s) {
+        return CompletableFuture.supplyAsync(() -> validateForPrinter(s, null), executor);
+    }
+
+}
@@ -0,0 +1,312 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.ServiceUIFactory;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.AttributeSet;
+import javax.print.attribute.AttributeSetUtilities;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.HashPrintJobAttributeSet;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.PrintJobAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.PrintServiceAttribute;
+import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.attribute.standard.Media;
+import javax.print.attribute.standard.MediaPrintableArea;
+import javax.print.attribute.standard.MediaSize;
+import javax.print.attribute.standard.MediaSizeName;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import javax.print.attribute.standard.PrinterName;
+import javax.print.event.PrintJobAttributeListener;
+import javax.print.event.PrintJobListener;
+import javax.print.event.PrintServiceAttributeListener;
+
+/**
+ * A PrintService that stands in for a printer described by a PrinterCapabilities model. It reports the model's media as
+ * supported Media values, and the printable area of each as MediaPrintableArea, like a real printer's service does.
+ * PageFormats are validated against the model directly, so validation needs no print system and is deterministic.
+ *
+ * The service cannot print: print jobs created from it fail with a PrintException.
+ *
+ * @author com.kevinnovate
+ */
+public final class SimulatedPrintService implements PrintService {
+
+    /**
+     * The name of a media size the standard MediaSizeNames do not cover. Its size is only known to the service that
+     * created it: a MediaSize is not created for it, as MediaSizes register themselves for all lookups in the JVM.
+     */
+    private static final class CustomMediaSizeName extends MediaSizeName {
+        private static int nextValue = 10000;  //above the values of the standard names
+
+        private final String name;
+        private final int value;
+
+        private CustomMediaSizeName(String n, int v) {
+            super(v);
+            name = n;
+            value = v;
+        }
+
+        private static synchronized CustomMediaSizeName create(String n) {
+            return new CustomMediaSizeName(n, nextValue++);
+        }
+
+        @Override
+        protected String[] getStringTable() {
+            return new String[] {name};
+        }
+
+        @Override
+        protected int getOffset() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final DocFlavor[] FLAVORS = {DocFlavor.SERVICE_FORMATTED.PAGEABLE, DocFlavor.SERVICE_FORMATTED.PRINTABLE};
+
+    private final PrinterCapabilities capabilities;
+    private final PrintServiceAttributeSet attributes;
+    private final MediaSizeName[] mediaNames;  //in the order of the model's media
+    private final HashMap<MediaSizeName, PrinterCapabilities.Media> mediaByName = new HashMap<>();  //the size of each name
+
+    /**
+     * Create a service for a printer model
+     * @param caps the printer model
+     */
+    public SimulatedPrintService(PrinterCapabilities caps) {
+        capabilities = caps;
+
+        HashPrintServiceAttributeSet a = new HashPrintServiceAttributeSet();
+        a.add(new PrinterName(caps.getName(), null));
+        a.add(PrinterIsAcceptingJobs.ACCEPTING_JOBS);
+        attributes = AttributeSetUtilities.unmodifiableView(a);
+
+        List<PrinterCapabilities.Media> media = caps.getMedia();
+        mediaNames = new MediaSizeName[media.size()];
+        for (int i = 0; i < mediaNames.length; i++) {
+            PrinterCapabilities.Media m = media.get(i);
+            mediaNames[i] = toMediaSizeName(m);
+            mediaByName.put(mediaNames[i], m);
+        }
+    }
+
+    /**
+     * Create a service from a capability file
+     * @param file the file, in the format read by PrinterCapabilities.load()
+     * @return the service
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static SimulatedPrintService load(Path file) throws IOException {
+        return new SimulatedPrintService(PrinterCapabilities.load(file));
+    }
+
+    /**
+     * Get the standard name of a media size, or create a custom name for it if there is no standard one
+     * @param m the media
+     * @return the name
+     */
+    private static MediaSizeName toMediaSizeName(PrinterCapabilities.Media m) {
+        float w = (float)(Math.min(m.getWidth(), m.getHeight()) / 72.0);  //MediaSize is portrait
+        float h = (float)(Math.max(m.getWidth(), m.getHeight()) / 72.0);
+
+        MediaSizeName n = MediaSize.findMedia(w, h, MediaSize.INCH);
+        if (n != null) {
+            MediaSize s = MediaSize.getMediaSizeForName(n);  //findMedia returns the closest size, which may not be close
+            double x = s == null ? 0 : s.getX(MediaSize.INCH) * 72.0;
+            double y = s == null ? 0 : s.getY(MediaSize.INCH) * 72.0;
+            if (m.matches(x, y) || m.matches(y, x))
+                return n;
+        }
+
+        return CustomMediaSizeName.create(m.getName());
+    }
+
+    /**
+     * Get the printer model of this service
+     * @return the model
+     */
+    public PrinterCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    private static MediaPrintableArea printableArea(PrinterCapabilities.Media m) {
+        return new MediaPrintableArea((float)(m.getLeftMargin() / 72.0), (float)(m.getTopMargin() / 72.0),
+                                      (float)((m.getWidth() - m.getLeftMargin() - m.getRightMargin()) / 72.0),
+                                      (float)((m.getHeight() - m.getTopMargin() - m.getBottomMargin()) / 72.0),
+                                      MediaPrintableArea.INCH);
+    }
+
+    /**
+     * Get the model media requested in an attribute set
+     * @param attrs the attributes, may be null
+     * @return the requested media, or the default media if none is requested
+     */
+    private PrinterCapabilities.Media requestedMedia(AttributeSet attrs) {
+        if (attrs != null) {
+            PrinterCapabilities.Media m = mediaByName.get(attrs.get(Media.class));
+            if (m != null)
+                return m;
+        }
+        return capabilities.getDefaultMedia();
+    }
+
+    @Override
+    public String getName() {
+        return capabilities.getName();
+    }
+
+    @Override
+    public DocPrintJob createPrintJob() {
+        PrintService service = this;
+        return new DocPrintJob() {
+            @Override
+            public PrintService getPrintService() {
+                return service;
+            }
+
+            @Override
+            public PrintJobAttributeSet getAttributes() {
+                return new HashPrintJobAttributeSet();
+            }
+
+            @Override
+            public void addPrintJobListener(PrintJobListener listener) {}
+
+            @Override
+            public void removePrintJobListener(PrintJobListener listener) {}
+
+            @Override
+            public void addPrintJobAttributeListener(PrintJobAttributeListener listener, PrintJobAttributeSet attributes) {}
+
+            @Override
+            public void removePrintJobAttributeListener(PrintJobAttributeListener listener) {}
+
+            @Override
+            public void print(javax.print.Doc doc, PrintRequestAttributeSet attributes) throws PrintException {
+                throw new PrintException(getName() + " is a simulated printer and cannot print");
+            }
+        };
+    }
+
+    /**
+     * The attributes of a simulated printer never change, so listeners are never notified
+     * @param listener the listener
+     */
+    @Override
+    public void addPrintServiceAttributeListener(PrintServiceAttributeListener listener) {}
+
+    @Override
+    public void removePrintServiceAttributeListener(PrintServiceAttributeListener listener) {}
+
+    @Override
+    public PrintServiceAttributeSet getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends PrintServiceAttribute> T getAttribute(Class<T> category) {
+        return (T)attributes.get(category);
+    }
+
+    @Override
+    public DocFlavor[] getSupportedDocFlavors() {
+        return FLAVORS.clone();
+    }
+
+    @Override
+    public boolean isDocFlavorSupported(DocFlavor flavor) {
+        for (DocFlavor f : FLAVORS) {
+            if (f.equals(flavor))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Class<?>[] getSupportedAttributeCategories() {
+        return new Class<?>[] {Media.class, MediaPrintableArea.class};
+    }
+
+    @Override
+    public boolean isAttributeCategorySupported(Class<? extends Attribute> category) {
+        return category == Media.class || category == MediaPrintableArea.class;
+    }
+
+    @Override
+    public Object getDefaultAttributeValue(Class<? extends Attribute> category) {
+        if (category == Media.class)
+            return mediaNames[capabilities.getMedia().indexOf(capabilities.getDefaultMedia())];
+        if (category == MediaPrintableArea.class)
+            return printableArea(capabilities.getDefaultMedia());
+        return null;
+    }
+
+    /**
+     * Get the supported Media, or the printable area of the media requested in the attributes
+     * @param category Media or MediaPrintableArea
+     * @param flavor ignored, all flavors have the same capabilities
+     * @param attributes for MediaPrintableArea, the requested Media
+     * @return the supported values, or null if the category is not supported
+     */
+    @Override
+    public Object getSupportedAttributeValues(Class<? extends Attribute> category, DocFlavor flavor, AttributeSet attributes) {
+        if (category == Media.class)
+            return mediaNames.clone();
+        if (category == MediaPrintableArea.class)
+            return new MediaPrintableArea[] {printableArea(requestedMedia(attributes))};
+        return null;
+    }
+
+    @Override
+    public boolean isAttributeValueSupported(Attribute attrval, DocFlavor flavor, AttributeSet attributes) {
+        if (attrval instanceof Media)
+            return mediaByName.containsKey(attrval);
+
+        if (attrval instanceof MediaPrintableArea) {  //supported if within the printable area of the requested media
+            float[] in = ((MediaPrintableArea)attrval).getPrintableArea(MediaPrintableArea.INCH);
+            float[] max = printableArea(requestedMedia(attributes)).getPrintableArea(MediaPrintableArea.INCH);
+            return in[0] >= max[0] && in[1] >= max[1] && in[0] + in[2] <= max[0] + max[2] && in[1] + in[3] <= max[1] + max[3];
+        }
+        return false;
+    }
+
+    @Override
+    public AttributeSet getUnsupportedAttributes(DocFlavor flavor, AttributeSet attributes) {
+        if (attributes == null)
+            return null;
+
+        HashAttributeSet unsupported = new HashAttributeSet();
+        for (Attribute a : attributes.toArray()) {
+            if (!isAttributeCategorySupported(a.getCategory()) || !isAttributeValueSupported(a, flavor, attributes))
+                unsupported.add(a);
+        }
+        return unsupported.isEmpty() ? null : unsupported;
+    }
+
+    @Override
+    public ServiceUIFactory getServiceUIFactory() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "Simulated Printer: " + getName();
+    }
+
+}
@@ -0,0 +1,142 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats values in a PageMeasureUnit with the unit's precision, as the PageSetupDialog displays them: up to the unit's
+ * number of decimals, without trailing zeros or grouping ("8.5", "215.9", "612"). Values are written digit by digit with
+ * long arithmetic rather than through a DecimalFormat, so formatting is fast enough for high volume use such as logging.
+ *
+ * Formatters are immutable and thread-safe. Get them from PageMeasureUnit.getFormatter(), which caches one per unit and
+ * locale.
+ *
+ * @author com.kevinnovate
+ */
+public final class UnitFormatter {
+
+    private static final double FAST_LIMIT = 1e15;  //scaled values beyond this may not fit a long exactly
+
+    private final PageMeasureUnit unit;
+    private final Locale locale;
+    private final int decimals;
+    private final long precision;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private final String negativePrefix, negativeSuffix;
+    private final DecimalFormat prototype;  //never handed out or used to format, only cloned
+
+    UnitFormatter(PageMeasureUnit u, Locale l) {
+        unit = u;
+        locale = l;
+        String pattern = u.getNumberFormat();
+        int dot = pattern.indexOf('.');
+        decimals = dot < 0 ? 0 : pattern.length() - dot - 1;
+
+        long p = 1;
+        for (int i = 0; i < decimals; i++)
+            p *= 10;
+        precision = p;
+
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(l);
+        zeroDigit = symbols.getZeroDigit();
+        decimalSeparator = symbols.getDecimalSeparator();
+        prototype = new DecimalFormat(pattern, symbols);
+        prototype.setRoundingMode(RoundingMode.HALF_UP);  //as format() rounds, rather than DecimalFormat's HALF_EVEN
+        negativePrefix = prototype.getNegativePrefix();  //not just the minus sign in some locales
+        negativeSuffix = prototype.getNegativeSuffix();
+    }
+
+    public PageMeasureUnit getUnit() {
+        return unit;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Format a value. Values are rounded half away from zero to the unit's precision.
+     * @param val the value, in the formatter's unit
+     * @return the formatted value
+     */
+    public String format(double val) {
+        return format(val, new StringBuilder(12)).toString();
+    }
+
+    /**
+     * Format a value, appending it to a StringBuilder without other allocation
+     * @param val the value, in the formatter's unit
+     * @param sb the builder to append to
+     * @return the builder
+     */
+    public StringBuilder format(double val, StringBuilder sb) {
+
+        double scaled = Math.abs(val) * precision;
+        if (!(scaled < FAST_LIMIT))  //NaN, infinite or huge
+            return sb.append(newDecimalFormat().format(val));
+
+        long r = Math.round(scaled);
+        if (r == 0)
+            return sb.append(zeroDigit);
+        if (val < 0)
+            sb.append(negativePrefix);
+
+        appendDigits(sb, r / precision);
+
+        long fraction = r % precision;
+        if (fraction != 0) {
+            int digits = decimals;
+            while (fraction % 10 == 0) {  //drop trailing zeros
+                fraction /= 10;
+                digits--;
+            }
+            sb.append(decimalSeparator);
+            int start = sb.length();
+            appendDigits(sb, fraction);
+            for (int pad = digits - (sb.length() - start); pad > 0; pad--)  //leading zeros of the fraction
+                sb.insert(start, zeroDigit);
+        }
+        return val < 0 ? sb.append(negativeSuffix) : sb;
+    }
+
+    private void appendDigits(StringBuilder sb, long v) {
+        int start = sb.length();
+        do {
+            sb.append((char)(zeroDigit + (int)(v % 10)));
+            v /= 10;
+        } while (v > 0);
+
+        for (int i = start, j = sb.length() - 1; i < j; i++, j--) {  //digits were appended least significant first
+            char c = sb.charAt(i);
+            sb.setCharAt(i, sb.charAt(j));
+            sb.setCharAt(j, c);
+        }
+    }
+
+    /**
+     * Format a width and height with the unit abbreviation, such as "8.5 x 11 in"
+     * @param width the width, in the formatter's unit
+     * @param height the height, in the formatter's unit
+     * @return the formatted dimensions
+     */
+    public String formatDimensions(double width, double height) {
+        StringBuilder sb = new StringBuilder(24);
+        format(width, sb).append(" x ");
+        return format(height, sb).append(' ').append(unit.abbr()).toString();
+    }
+
+    /**
+     * Create a DecimalFormat with the unit's pattern and the formatter's locale, for parsing or for Swing formatters.
+     * DecimalFormat is not thread-safe, so each caller gets its own, copied from a cached instance rather than parsed anew.
+     * The format rounds half up, as format() does.
+     * @return a new DecimalFormat
+     */
+    public DecimalFormat newDecimalFormat() {
+        return (DecimalFormat)prototype.clone();
+    }
+
+}
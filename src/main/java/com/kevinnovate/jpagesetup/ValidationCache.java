@@ -0,0 +1,171 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.print.PrintService;
+
+/**
+ * A bounded, least-recently-used cache of printer validation results.  Validating a PageFormat against a printer is slow,
+ * and the same few geometries tend to be validated over and over against the same printers, so results are remembered
+ * per print service and page geometry.
+ *
+ * Geometries are compared as fixed point PageGeometry values, so formats that differ only by floating point rounding
+ * share an entry.  The entries for a print service are discarded when the service reports that its configuration
+ * has changed; notifications of the printer's activity, such as a queued job, leave them in place.
+ *
+ * @author com.kevinnovate
+ */
+public final class ValidationCache {
+
+    /**
+     * The number of entries held by the shared cache
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final ValidationCache shared = new ValidationCache(DEFAULT_CAPACITY);
+
+    /**
+     * Get the cache used by the PageSetupDialog validation paths
+     * @return the shared cache
+     */
+    public static ValidationCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Identifies a validation by its print service and quantized geometry
+     */
+    private static final class Key {
+        private final PrintService service;
+        private final PageGeometry geometry;
+
+        private Key(PrintService s, PageFormat f) {
+            service = s;
+            geometry = new PageGeometry(f);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * service.hashCode() + geometry.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+
+            Key k = (Key)o;
+            return geometry.equals(k.geometry) && service.equals(k.service);
+        }
+    }
+
+    private final LinkedHashMap<Key, PageFormat> entries;  //guarded by this, in access order for LRU eviction
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final ConfigurationListener attributeListener = new ConfigurationListener(this::invalidate);
+
+    /**
+     * Create a cache
+     * @param capacity the maximum number of entries, after which the least recently used are evicted
+     */
+    public ValidationCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+
+        entries = new LinkedHashMap<Key, PageFormat>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PageFormat> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Look up a previous validation result
+     * @param s the print service validated against
+     * @param f the page format that was validated
+     * @return a copy of the validated format, or null if not cached
+     */
+    PageFormat get(PrintService s, PageFormat f) {
+        PageFormat validated;
+        synchronized (this) {
+            validated = entries.get(new Key(s, f));
+        }
+
+        if (validated == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return (PageFormat)validated.clone();
+    }
+
+    /**
+     * Remember a validation result
+     * @param s the print service validated against
+     * @param f the page format that was validated
+     * @param validated the result of the validation, which is copied
+     */
+    void put(PrintService s, PageFormat f, PageFormat validated) {
+        Key k = new Key(s, f);
+        PageFormat copy = (PageFormat)validated.clone();
+
+        synchronized (this) {
+            entries.put(k, copy);
+        }
+
+        attributeListener.watch(s);  //discard the service's entries if it reports a configuration change
+    }
+
+    /**
+     * Discard all entries for a print service
+     * @param s the print service
+     */
+    public synchronized void invalidate(PrintService s) {
+        Iterator<Key> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().service.equals(s))
+                it.remove();
+        }
+    }
+
+    /**
+     * Discard all entries. The hit and miss counts are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the current number of entries
+     * @return the number of cached validations
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of lookups that found a cached result
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups that found no cached result
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+}
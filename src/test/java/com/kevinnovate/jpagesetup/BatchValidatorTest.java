@@ -0,0 +1,85 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for BatchValidator
+ *
+ * @author com.kevinnovate
+ */
+public class BatchValidatorTest {
+
+    private static final double MM = 72.0 / 25.4;
+
+    private static PageFormat page(double width, double height, double margin) {
+        PageFormat f = PrinterCapabilitiesTest.page(width, height);
+        Paper p = f.getPaper();
+        p.setImageableArea(margin, margin, width - 2 * margin, height - 2 * margin);
+        f.setPaper(p);
+        return f;
+    }
+
+    @Test
+    public void validatesEveryFormatAgainstEveryPrinter() throws IOException {
+        SimulatedPrintService a4 = new SimulatedPrintService(PrinterCapabilitiesTest.load(
+                "name = A4 only\nunit = mm\nmedia.A4.size = 210 297\nmedia.A4.margins = 5 5 5 5\n"));
+        SimulatedPrintService wide = new SimulatedPrintService(PrinterCapabilitiesTest.load(
+                "name = Wide\nunit = mm\nmedia.A4.size = 210 297\nmedia.A4.margins = 5 5 5 5\n"
+              + "custom.min = 50 50\ncustom.max = 1000 1000\ncustom.margins = 5 5 5 5\n"));
+
+        List<PageFormat> formats = new ArrayList<>();
+        for (int i = 0; i < 40; i++)  //many copies of few geometries, split over several tasks
+            formats.add(i % 2 == 0 ? page(210 * MM, 297 * MM, 72) : page(300 * MM, 400 * MM, 72));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CompatibilityMatrix m;
+        try {
+            m = BatchValidator.validate(formats, Arrays.asList(a4, wide), PageFormatEngine.DEFAULT_TOLERANCE, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(40, m.getFormatCount());
+        assertEquals(2, m.getGeometryCount());
+        assertTrue(m.isCompatible(0, 0));
+        assertTrue(m.isCompatible(0, 1));
+        assertEquals(PageFormatEngine.Status.SIZE_CHANGED, m.getStatus(1, 0));
+        assertTrue(m.isCompatible(1, 1));
+        assertEquals(Arrays.asList(wide), m.getCompatibleServices(39));
+        assertFalse(m.getCompatibleServices(38).isEmpty());
+    }
+
+    @Test
+    public void looksUpEachCellInTheCacheOnce() throws IOException {
+        SimulatedPrintService a4 = new SimulatedPrintService(PrinterCapabilitiesTest.load(
+                "name = A4 counted\nunit = mm\nmedia.A4.size = 210 297\nmedia.A4.margins = 5 5 5 5\n"));
+        List<PageFormat> formats = Arrays.asList(page(210 * MM, 297 * MM, 72), page(100 * MM, 150 * MM, 72));
+        ValidationCache cache = ValidationCache.getShared();
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            long misses = cache.getMissCount(), hits = cache.getHitCount();
+            BatchValidator.validate(formats, Arrays.asList(a4), PageFormatEngine.DEFAULT_TOLERANCE, pool);
+            assertEquals(2, cache.getMissCount() - misses);
+            assertEquals(0, cache.getHitCount() - hits);
+
+            BatchValidator.validate(formats, Arrays.asList(a4), PageFormatEngine.DEFAULT_TOLERANCE, pool);
+            assertEquals(2, cache.getMissCount() - misses);
+            assertEquals(2, cache.getHitCount() - hits);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
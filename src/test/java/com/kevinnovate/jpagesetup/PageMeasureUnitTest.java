@@ -0,0 +1,61 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.nio.DoubleBuffer;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for PageMeasureUnit
+ *
+ * @author com.kevinnovate
+ */
+public class PageMeasureUnitTest {
+
+    @Test
+    public void didotUnitsMatchTheTraditionalPoint() {
+        assertEquals(0.376065, PageMeasureUnit.MM.fromPFUnits(PageMeasureUnit.DD.toPFUnits(1000)) / 1000, 1e-4);
+        assertEquals(12 * 0.376065, PageMeasureUnit.MM.fromPFUnits(PageMeasureUnit.CC.toPFUnits(1000)) / 1000, 1e-4);
+        assertEquals(12 * PageMeasureUnit.DD.toPFUnits(1), PageMeasureUnit.CC.toPFUnits(1), 1e-12);
+    }
+
+    @Test
+    public void bulkConversionMatchesSingleValues() {
+        double[] src = {0, 1, 2.5, 8.5, 11, 297};
+        double[] dst = new double[src.length + 2];
+        PageMeasureUnit.MM.toPFUnits(src, 0, dst, 2, src.length);
+        for (int i = 0; i < src.length; i++)
+            assertEquals(PageMeasureUnit.MM.toPFUnits(src[i]), dst[i + 2], 0.0);
+
+        PageMeasureUnit.IN.fromPFUnits(dst, 2, dst, 0, 2);  //same array, ranges apart
+        assertEquals(PageMeasureUnit.IN.fromPFUnits(dst[2]), dst[0], 0.0);
+        assertEquals(PageMeasureUnit.IN.fromPFUnits(dst[3]), dst[1], 0.0);
+    }
+
+    @Test
+    public void bulkConversionInPlace() {
+        double[] values = {72, 144, 612};
+        PageMeasureUnit.IN.fromPFUnits(values, 0, values, 0, values.length);
+        assertArrayEquals(new double[] {1, 2, 8.5}, values, 0.0);
+
+        DoubleBuffer buffer = DoubleBuffer.wrap(new double[] {1, 2, 8.5});
+        PageMeasureUnit.IN.toPFUnits(buffer, 0, buffer, 0, 3);
+        assertArrayEquals(new double[] {72, 144, 612}, buffer.array(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overlappingRangesAreRejected() {
+        double[] values = {72, 144, 612, 0};
+        PageMeasureUnit.IN.fromPFUnits(values, 0, values, 1, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overlappingBufferViewsAreRejected() {
+        double[] values = {72, 144, 612, 0};
+        DoubleBuffer a = DoubleBuffer.wrap(values);
+        DoubleBuffer b = DoubleBuffer.wrap(values, 1, 3).slice();
+        PageMeasureUnit.IN.fromPFUnits(a, 0, b, 0, 3);
+    }
+
+}
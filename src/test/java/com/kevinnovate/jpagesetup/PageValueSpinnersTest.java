@@ -0,0 +1,71 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.util.Locale;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for PageValueSpinners
+ *
+ * @author com.kevinnovate
+ */
+public class PageValueSpinnersTest {
+
+    private JSpinner[] spinners;
+    private PageValueSpinners values;
+
+    @Before
+    public void setUp() {
+        spinners = new JSpinner[PageFormatEngine.VALUE_COUNT];
+        for (int i = 0; i < spinners.length; i++)
+            spinners[i] = new JSpinner(new SpinnerNumberModel(0.0d, 0.0d, null, 0.1d));
+        values = new PageValueSpinners(spinners, PageMeasureUnit.IN, Locale.US);
+    }
+
+    private double[] get() {
+        double[] v = new double[PageFormatEngine.VALUE_COUNT];
+        for (int i = 0; i < v.length; i++)
+            v[i] = values.get(i);
+        return v;
+    }
+
+    @Test
+    public void switchingUnitsKeepsValues() {
+        values.setFrom(PageFormatEngine.create(PageFormat.PORTRAIT, 612, 792, 18, 36, 54, 72));
+        double[] before = get();
+
+        values.setUnit(PageMeasureUnit.MM);
+        assertArrayEquals(before, get(), 0.0);
+        assertEquals(215.9, (double)spinners[PageFormatEngine.WIDTH].getValue(), 1e-9);
+
+        values.setUnit(PageMeasureUnit.IN);
+        assertArrayEquals(before, get(), 0.0);
+        assertEquals(8.5, (double)spinners[PageFormatEngine.WIDTH].getValue(), 1e-9);
+    }
+
+    @Test
+    public void sizeSetInOneUnitIsKeptInAnother() {
+        values.setSize(PageMeasureUnit.MM.toPFUnits(210), PageMeasureUnit.MM.toPFUnits(297));  //A4 while showing inches
+        values.setUnit(PageMeasureUnit.MM);
+        assertEquals(210.0, (double)spinners[PageFormatEngine.WIDTH].getValue(), 1e-9);
+        assertEquals(297.0, (double)spinners[PageFormatEngine.HEIGHT].getValue(), 1e-9);
+    }
+
+    @Test
+    public void enteredValuesAreConvertedFromTheUnit() {
+        values.setUnit(PageMeasureUnit.MM);
+        spinners[PageFormatEngine.LEFT].setValue(25.4);
+        assertEquals(72.0, values.get(PageFormatEngine.LEFT), 1e-9);
+
+        values.setUnit(PageMeasureUnit.IN);
+        assertEquals(72.0, values.get(PageFormatEngine.LEFT), 1e-9);
+        assertEquals(1.0, (double)spinners[PageFormatEngine.LEFT].getValue(), 1e-9);
+    }
+
+}
@@ -0,0 +1,136 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for PaperCatalog
+ *
+ * @author com.kevinnovate
+ */
+public class PaperCatalogTest {
+
+    private static final int COUNT = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String[] categories = new String[COUNT];
+    private final String[] names = new String[COUNT];
+    private final double[] widths = new double[COUNT];
+    private final double[] heights = new double[COUNT];
+    private final PageMeasureUnit[] units = new PageMeasureUnit[COUNT];
+    private PaperCatalog catalog;
+
+    @Before
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        PaperCatalog.Builder b = new PaperCatalog.Builder();
+        for (int i = 0; i < COUNT; i++) {
+            categories[i] = "Labels " + (i % 7);
+            names[i] = "L-" + i + (i % 3 == 0 ? " étiquette" : "");
+            units[i] = i % 2 == 0 ? PageMeasureUnit.MM : PageMeasureUnit.IN;
+            widths[i] = units[i] == PageMeasureUnit.MM ? 10 + random.nextInt(400) : 0.5 + random.nextInt(160) / 10.0;
+            heights[i] = units[i] == PageMeasureUnit.MM ? 10 + random.nextInt(400) : 0.5 + random.nextInt(160) / 10.0;
+            assertTrue(b.add(categories[i], names[i], widths[i], heights[i], units[i]));
+        }
+        assertFalse(b.add(categories[0], names[0], 1, 1, PageMeasureUnit.IN));
+        assertEquals(COUNT, b.size());
+
+        Path file = folder.newFile("labels.jppc").toPath();
+        b.write(file);
+        catalog = PaperCatalog.open(file);
+    }
+
+    @Test
+    public void roundTripsEveryEntry() {
+        assertEquals(COUNT, catalog.size());
+        for (int i = 0; i < COUNT; i++) {
+            int e = catalog.indexOf(categories[i], names[i]);
+            assertTrue(names[i], e >= 0);
+            assertEquals(categories[i], catalog.getCategory(e));
+            assertEquals(names[i], catalog.getName(e));
+            assertEquals(units[i], catalog.getUnit(e));
+            assertEquals(units[i].toPFUnits(widths[i]), catalog.getWidth(e), 1e-9);
+            assertEquals(units[i].toPFUnits(heights[i]), catalog.getHeight(e), 1e-9);
+
+            AutoPageType t = catalog.find(categories[i], names[i]);
+            assertNotNull(t);
+            assertEquals(catalog.getWidth(e), t.getWidth(), 1e-9);
+        }
+        assertEquals(-1, catalog.indexOf("Labels 0", "missing"));
+        assertNull(catalog.find("missing", names[0]));
+    }
+
+    @Test
+    public void attachedTypesAreFound() {
+        catalog.attach();  //stays attached, no other test uses these categories
+        AutoPageType t = AutoPageType.find(categories[1], names[1]);
+        assertNotNull(t);
+        assertEquals(catalog.getWidth(catalog.indexOf(categories[1], names[1])), t.getWidth(), 1e-9);
+        assertNull(AutoPageType.find(categories[1], "missing"));
+    }
+
+    @Test
+    public void findBySizeMatchesAScan() {
+        Random random = new Random(7);
+        for (int q = 0; q < 200; q++) {
+            int i = random.nextInt(COUNT);
+            double w = units[i].toPFUnits(widths[i]);
+            double h = units[i].toPFUnits(heights[i]);
+            double tolerance = random.nextInt(3) * 2.0;
+
+            List<AutoPageType> found = new ArrayList<>();
+            catalog.findBySize(w, h, tolerance, found);
+            int expected = 0;
+            for (int k = 0; k < COUNT; k++) {
+                if (Math.abs(units[k].toPFUnits(widths[k]) - w) <= tolerance && Math.abs(units[k].toPFUnits(heights[k]) - h) <= tolerance)
+                    expected++;
+            }
+            assertEquals(expected, found.size());
+            for (int k = 1; k < found.size(); k++)
+                assertTrue(found.get(k - 1).getWidth() <= found.get(k).getWidth());
+        }
+    }
+
+    @Test
+    public void matchFindsTheNearestSize() {
+        Random random = new Random(11);
+        for (int q = 0; q < 1000; q++) {
+            double w = 20 + random.nextDouble() * 1200;
+            double h = 20 + random.nextDouble() * 1200;
+            double tolerance = random.nextBoolean() ? 10 : 1e6;
+
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < COUNT; k++) {
+                double tw = units[k].toPFUnits(widths[k]);
+                double th = units[k].toPFUnits(heights[k]);
+                double ds = Math.min(tw, th) - Math.min(w, h);
+                double dl = Math.max(tw, th) - Math.max(w, h);
+                best = Math.min(best, Math.sqrt(ds * ds + dl * dl));
+            }
+
+            PageTypeMatcher.Match m = catalog.match(w, h, tolerance);
+            if (best > tolerance)
+                assertNull(m);
+            else {
+                assertNotNull(m);
+                assertEquals(best, m.getDistance(), 1e-9);
+            }
+        }
+    }
+
+}
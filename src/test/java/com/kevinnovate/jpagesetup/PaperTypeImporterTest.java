@@ -0,0 +1,112 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for PaperTypeImporter. Imported types are added to the shared registry, so each test uses its own categories.
+ *
+ * @author com.kevinnovate
+ */
+public class PaperTypeImporterTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    private static PaperTypeImporter.Result importText(String text, PaperTypeImporter.Format format) throws IOException {
+        return PaperTypeImporter.importTypes(new StringReader(text), format, pool);
+    }
+
+    private static void assertType(String category, String name, double width, double height, PageMeasureUnit unit) {
+        AutoPageType t = AutoPageType.find(category, name);
+        assertNotNull(category + " " + name, t);
+        assertEquals(unit.toPFUnits(width), t.getWidth(), 1e-9);
+        assertEquals(unit.toPFUnits(height), t.getHeight(), 1e-9);
+    }
+
+    @Test
+    public void readsQuotedCsvFields() throws IOException {
+        PaperTypeImporter.Result r = importText("Csv Quoted,DC-1042,62,29,mm\n"
+                                              + "\"Csv Quoted, Round\",\"R \"\"2\"\"\",2,2,in\n"
+                                              + "Csv Quoted,\"Two\nLines\",3,4,cm\n", PaperTypeImporter.Format.CSV);
+        assertEquals(3, r.getRowCount());
+        assertEquals(3, r.getAdded());
+        assertEquals(0, r.getErrors().size());
+        assertType("Csv Quoted", "DC-1042", 62, 29, PageMeasureUnit.MM);
+        assertType("Csv Quoted, Round", "R \"2\"", 2, 2, PageMeasureUnit.IN);
+        assertType("Csv Quoted", "Two\nLines", 3, 4, PageMeasureUnit.CM);
+    }
+
+    @Test
+    public void followsTheHeaderColumnOrder() throws IOException {
+        PaperTypeImporter.Result r = importText("unit,height,width,name,category\n"
+                                              + "mm,297,210,Sheet,Csv Header\n", PaperTypeImporter.Format.CSV);
+        assertEquals(1, r.getRowCount());
+        assertEquals(1, r.getAdded());
+        assertType("Csv Header", "Sheet", 210, 297, PageMeasureUnit.MM);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnIncompleteHeader() throws IOException {
+        importText("width,height,name\n10,20,Sheet\n", PaperTypeImporter.Format.CSV);
+    }
+
+    @Test
+    public void reportsBadRowsAndKeepsGoing() throws IOException {
+        PaperTypeImporter.Result r = importText("Csv Errors,Good,1,2,in\n"
+                                              + "Csv Errors,Furlong,1,2,furlong\n"
+                                              + "Csv Errors,Flat,0,2,in\n"
+                                              + "Csv Errors,Letters,abc,2,in\n"
+                                              + "Csv Errors,,1,2,in\n"
+                                              + "Csv Errors,Good,3,4,in\n", PaperTypeImporter.Format.CSV);
+        assertEquals(6, r.getRowCount());
+        assertEquals(1, r.getAdded());
+        assertEquals(1, r.getDuplicates());
+        assertEquals(4, r.getErrors().size());
+        assertEquals("line 2: unknown unit \"furlong\"", r.getErrors().get(0).toString());
+        assertEquals("line 3: width must be positive", r.getErrors().get(1).toString());
+        assertEquals("line 4: width \"abc\" is not a number", r.getErrors().get(2).toString());
+        assertEquals("line 5: missing name", r.getErrors().get(3).toString());
+        assertType("Csv Errors", "Good", 1, 2, PageMeasureUnit.IN);
+        assertNull(AutoPageType.find("Csv Errors", "Furlong"));
+    }
+
+    @Test
+    public void readsJsonArraysAndLines() throws IOException {
+        PaperTypeImporter.Result r = importText("[{\"category\": \"Json Array\", \"name\": \"A\", \"width\": 62, \"height\": \"29\", \"unit\": \"mm\", \"sku\": 7},\n"
+                                              + " {\"name\": \"B\", \"category\": \"Json Array\", \"width\": 1.5, \"height\": 2, \"unit\": \"in\"}]",
+                                                PaperTypeImporter.Format.JSON);
+        assertEquals(2, r.getAdded());
+        assertType("Json Array", "A", 62, 29, PageMeasureUnit.MM);
+        assertType("Json Array", "B", 1.5, 2, PageMeasureUnit.IN);
+
+        r = importText("{\"category\": \"Json Lines\", \"name\": \"A\", \"width\": 10, \"height\": 20, \"unit\": \"pt\"}\n"
+                     + "{\"category\": \"Json Lines\", \"name\": \"B\", \"width\": 30, \"height\": 40, \"unit\": \"pt\"}\n",
+                       PaperTypeImporter.Format.JSON);
+        assertEquals(2, r.getRowCount());
+        assertEquals(2, r.getAdded());
+        assertType("Json Lines", "B", 30, 40, PageMeasureUnit.PT);
+    }
+
+    @Test
+    public void importsManyChunks() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            sb.append("Csv Bulk,T-").append(i).append(',').append(1 + i % 50).append(",10,mm\n");
+        PaperTypeImporter.Result r = importText(sb.toString(), PaperTypeImporter.Format.CSV);
+        assertEquals(10000, r.getAdded());
+        assertType("Csv Bulk", "T-9999", 50, 10, PageMeasureUnit.MM);
+    }
+
+}
@@ -0,0 +1,100 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import javax.print.PrintService;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.standard.ColorSupported;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import javax.print.attribute.standard.PrinterName;
+import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.QueuedJobCount;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for PrintServiceWatcher
+ *
+ * @author com.kevinnovate
+ */
+public class PrintServiceWatcherTest {
+
+    private final HashPrintServiceAttributeSet attributes = new HashPrintServiceAttributeSet();
+    private final List<String> events = new ArrayList<>();
+    private PrintService service;
+    private PrintService[] services;
+    private PrintServiceWatcher watcher;
+
+    @Before
+    public void setUp() {
+        attributes.add(new PrinterName("Office", null));
+        attributes.add(PrinterState.IDLE);
+        attributes.add(PrinterIsAcceptingJobs.ACCEPTING_JOBS);
+        attributes.add(new QueuedJobCount(0));
+
+        service = (PrintService)Proxy.newProxyInstance(PrintService.class.getClassLoader(), new Class<?>[] {PrintService.class},
+                (Object proxy, Method m, Object[] args) -> {
+                    switch (m.getName()) {
+                        case "getName": return "Office";
+                        case "getAttributes": return new HashPrintServiceAttributeSet(attributes);
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        case "toString": return "Office";
+                        default: return null;
+                    }
+                });
+        services = new PrintService[] {service};
+
+        watcher = new PrintServiceWatcher(() -> services);
+        watcher.addListener(new PrintServiceWatcher.Listener() {
+            @Override
+            public void serviceAdded(PrintService s) {
+                events.add("added " + s.getName());
+            }
+
+            @Override
+            public void serviceRemoved(PrintService s) {
+                events.add("removed " + s.getName());
+            }
+
+            @Override
+            public void serviceChanged(PrintService s) {
+                events.add("changed " + s.getName());
+            }
+        });
+        watcher.poll();
+    }
+
+    @Test
+    public void reportsAddedAndRemovedServices() {
+        services = new PrintService[0];
+        watcher.poll();
+        services = new PrintService[] {service};
+        watcher.poll();
+        assertEquals("[added Office, removed Office, added Office]", events.toString());
+    }
+
+    @Test
+    public void activityIsNotAChange() {
+        attributes.add(PrinterState.PROCESSING);
+        attributes.add(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS);
+        attributes.add(new QueuedJobCount(3));
+        watcher.poll();
+        attributes.add(PrinterState.IDLE);
+        watcher.poll();
+        assertEquals("[added Office]", events.toString());
+    }
+
+    @Test
+    public void configurationIsAChange() {
+        attributes.add(ColorSupported.SUPPORTED);
+        watcher.poll();
+        watcher.poll();
+        assertEquals("[added Office, changed Office]", events.toString());
+    }
+
+}
@@ -0,0 +1,148 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for PrinterCapabilities
+ *
+ * @author com.kevinnovate
+ */
+public class PrinterCapabilitiesTest {
+
+    private static final String LASER = "name = Office Laser\n"
+                                      + "unit = mm\n"
+                                      + "default = A4\n"
+                                      + "media.A4.size = 210 297\n"
+                                      + "media.A4.margins = 5 4 3 6\n"
+                                      + "media.Letter.size = 215.9 279.4\n"
+                                      + "media.Letter.margins = 4.2 4.2 4.2 4.2\n"
+                                      + "custom.min = 76 127\n"
+                                      + "custom.max = 216 356\n"
+                                      + "custom.margins = 2 2 2 2\n";
+
+    private static final double MM = 72.0 / 25.4;
+
+    private PrinterCapabilities laser;
+
+    static PrinterCapabilities load(String properties) throws IOException {
+        return PrinterCapabilities.load(new ByteArrayInputStream(properties.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static PageFormat page(double width, double height) {
+        PageFormat f = new PageFormat();
+        Paper p = new Paper();
+        p.setSize(width, height);
+        p.setImageableArea(0, 0, width, height);
+        f.setPaper(p);
+        return f;
+    }
+
+    private static void assertArea(PageFormat f, double x, double y, double w, double h) {
+        Paper p = f.getPaper();
+        assertEquals("imageable x", x, p.getImageableX(), 1e-9);
+        assertEquals("imageable y", y, p.getImageableY(), 1e-9);
+        assertEquals("imageable width", w, p.getImageableWidth(), 1e-9);
+        assertEquals("imageable height", h, p.getImageableHeight(), 1e-9);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        laser = load(LASER);
+    }
+
+    @Test
+    public void loadsMediaInPageFormatUnits() {
+        assertEquals("Office Laser", laser.getName());
+        assertEquals(2, laser.getMedia().size());
+        assertEquals("A4", laser.getDefaultMedia().getName());
+        assertEquals(210 * MM, laser.getDefaultMedia().getWidth(), 1e-9);
+        assertEquals(5 * MM, laser.getDefaultMedia().getLeftMargin(), 1e-9);
+        assertTrue(laser.supportsCustomSizes());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnUndefinedDefault() throws IOException {
+        load("default = A3\nmedia.A4.size = 210 297\n");
+    }
+
+    @Test
+    public void snapsToAMediaWithinTheTolerance() {
+        PageFormat v = laser.validate(page(210 * MM + 0.05, 297 * MM - 0.05));
+        assertEquals(210 * MM, v.getPaper().getWidth(), 1e-9);
+        assertEquals(297 * MM, v.getPaper().getHeight(), 1e-9);
+        assertArea(v, 5 * MM, 4 * MM, 202 * MM, 287 * MM);
+    }
+
+    @Test
+    public void neverSnapsBeyondTheDialogTolerance() {
+        PageFormat a4InInches = page(8.27 * 72, 11.69 * 72);  //within 0.25 pt of A4
+        Paper p = a4InInches.getPaper();
+        p.setImageableArea(72, 72, p.getWidth() - 144, p.getHeight() - 144);
+        a4InInches.setPaper(p);
+        PageFormat v = laser.validate(a4InInches);
+        assertEquals(PageFormatEngine.Status.VALID, PageFormatEngine.check(v, a4InInches));
+        assertEquals(8.27 * 72, v.getPaper().getWidth(), 1e-9);
+    }
+
+    @Test
+    public void rotatesTheMarginsOfARotatedMedia() {
+        PageFormat v = laser.validate(page(297 * MM, 210 * MM));
+        assertEquals(297 * MM, v.getPaper().getWidth(), 1e-9);
+        assertArea(v, 6 * MM, 5 * MM, 287 * MM, 202 * MM);  //left is the media's bottom, top its left
+    }
+
+    @Test
+    public void clampsCustomSizesToTheRange() {
+        PageFormat v = laser.validate(page(50 * MM, 400 * MM));
+        assertEquals(76 * MM, v.getPaper().getWidth(), 1e-9);
+        assertEquals(356 * MM, v.getPaper().getHeight(), 1e-9);
+        assertArea(v, 2 * MM, 2 * MM, 48 * MM, 352 * MM);  //the requested area, within the custom margins
+
+        v = laser.validate(page(100 * MM, 150 * MM));
+        assertEquals(100 * MM, v.getPaper().getWidth(), 1e-9);
+        assertEquals(150 * MM, v.getPaper().getHeight(), 1e-9);
+    }
+
+    @Test
+    public void keepsARequestedAreaInsideTheMargins() {
+        PageFormat f = page(210 * MM, 297 * MM);
+        Paper p = f.getPaper();
+        p.setImageableArea(72, 72, p.getWidth() - 144, p.getHeight() - 144);
+        f.setPaper(p);
+        assertArea(laser.validate(f), 72, 72, p.getWidth() - 144, p.getHeight() - 144);
+    }
+
+    @Test
+    public void usesTheDefaultMediaWithoutCustomSizes() throws IOException {
+        PrinterCapabilities fixed = load("unit = mm\nmedia.A4.size = 210 297\nmedia.A4.margins = 5 5 5 5\n");
+        assertFalse(fixed.supportsCustomSizes());
+        PageFormat v = fixed.validate(page(100 * MM, 150 * MM));
+        assertEquals(210 * MM, v.getPaper().getWidth(), 1e-9);
+        assertEquals(297 * MM, v.getPaper().getHeight(), 1e-9);
+    }
+
+    @Test
+    public void findsMediaInEitherOrientation() {
+        assertEquals("Letter", laser.findMedia(792, 612).getName());
+        assertNull(laser.findMedia(600, 800));
+    }
+
+    @Test
+    public void roundTripsThroughProperties() throws IOException {
+        PrinterCapabilities copy = PrinterCapabilities.fromProperties(laser.toProperties(), "copy");
+        for (PageFormat f : new PageFormat[] {page(612, 792), page(400, 600), page(2000, 90)})
+            assertEquals(PageFormatEngine.Status.VALID, PageFormatEngine.check(laser.validate(f), copy.validate(f)));
+    }
+
+}
@@ -0,0 +1,157 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.print.PrintService;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.standard.ColorSupported;
+import javax.print.attribute.standard.Media;
+import javax.print.attribute.standard.MediaSizeName;
+import javax.print.attribute.standard.PrinterName;
+import javax.print.attribute.standard.QueuedJobCount;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for PrinterCapabilityCache. The caches are not installed, so printer validation elsewhere is unaffected.
+ *
+ * @author com.kevinnovate
+ */
+public class PrinterCapabilityCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final HashPrintServiceAttributeSet attributes = new HashPrintServiceAttributeSet();
+    private Media[] media = {MediaSizeName.ISO_A4, MediaSizeName.NA_LETTER};
+    private PrintService service;
+    private PrinterCapabilities laser;
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        attributes.add(new PrinterName("Office Laser", null));
+        attributes.add(ColorSupported.NOT_SUPPORTED);
+        attributes.add(new QueuedJobCount(0));
+
+        service = (PrintService)Proxy.newProxyInstance(PrintService.class.getClassLoader(), new Class<?>[] {PrintService.class},
+                (Object proxy, Method m, Object[] args) -> {
+                    switch (m.getName()) {
+                        case "getName": return "Office Laser";
+                        case "getAttributes": return new HashPrintServiceAttributeSet(attributes);
+                        case "getSupportedAttributeValues": return args[0] == Media.class ? media.clone() : null;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+
+        laser = PrinterCapabilitiesTest.load("name = Office Laser\n"
+                                           + "unit = mm\n"
+                                           + "default = A4\n"
+                                           + "media.A4.size = 210 297\n"
+                                           + "media.A4.margins = 5 4 3 6\n"
+                                           + "media.Letter.size = 215.9 279.4\n"
+                                           + "media.Letter.margins = 4.2 4.2 4.2 4.2\n");
+        directory = folder.newFolder("printers").toPath();
+    }
+
+    @Test
+    public void roundTripsASnapshot() throws IOException, InterruptedException {
+        PrinterCapabilityCache cache = new PrinterCapabilityCache(directory);
+        cache.putCapabilities(service, laser);
+        cache.putDefaultPage(service, laser.getDefaultPage());
+        PrinterCapabilityCache.flush();
+
+        PrinterCapabilityCache reopened = new PrinterCapabilityCache(directory);
+        assertEquals(1, reopened.size());
+        Optional<PrinterCapabilities> model = reopened.getCapabilities(service);
+        assertNotNull(model);
+        assertTrue(model.isPresent());
+        for (PageFormat f : new PageFormat[] {PrinterCapabilitiesTest.page(612, 792), PrinterCapabilitiesTest.page(842, 595)})
+            assertEquals(PageFormatEngine.Status.VALID, PageFormatEngine.check(laser.validate(f), model.get().validate(f)));
+        assertEquals(PageFormatEngine.Status.VALID, PageFormatEngine.check(laser.getDefaultPage(), reopened.getDefaultPage(service)));
+
+        PrinterCapabilityCache.flush();  //the revalidation found the printer unchanged
+        assertEquals(1, new PrinterCapabilityCache(directory).size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());  //no temporary files are left behind
+        }
+    }
+
+    @Test
+    public void fingerprintFollowsTheConfigurationOnly() {
+        String before = PrinterCapabilityCache.fingerprint(service);
+        assertEquals(64, before.length());
+
+        attributes.add(new QueuedJobCount(5));
+        assertEquals(before, PrinterCapabilityCache.fingerprint(service));
+
+        media = new Media[] {MediaSizeName.ISO_A4};
+        assertNotEquals(before, PrinterCapabilityCache.fingerprint(service));
+    }
+
+    @Test
+    public void skipsCorruptAndPartialFiles() throws IOException, InterruptedException {
+        PrinterCapabilityCache cache = new PrinterCapabilityCache(directory);
+        cache.putCapabilities(service, laser);
+        PrinterCapabilityCache.flush();
+
+        Path[] written;
+        try (Stream<Path> files = Files.list(directory)) {
+            written = files.toArray(Path[]::new);
+        }
+        assertEquals(1, written.length);
+        byte[] complete = Files.readAllBytes(written[0]);
+        String fingerprint = "snapshot.fingerprint=" + PrinterCapabilityCache.fingerprint(service) + "\n";
+
+        //a write interrupted before its move, a broken escape, a truncated page, and a model cut short
+        Files.write(directory.resolve("snapshot123.tmp"), Arrays.copyOf(complete, complete.length / 2));
+        write("printer-escape.properties", "snapshot.version=2\n" + fingerprint + "snapshot.service=Escape\nname=\\u12\n");
+        write("printer-page.properties", "snapshot.version=2\n" + fingerprint + "snapshot.service=Page\nsnapshot.page=1 612.0 792.0\n");
+        write("printer-model.properties", "snapshot.version=2\n" + fingerprint + "snapshot.service=Model\nsnapshot.model=true\n"
+                                        + "unit=mm\ndefault=A4\nmedia.A4.margins=5 5 5 5\n");
+        write("printer-old.properties", "snapshot.version=1\n" + fingerprint + "snapshot.service=Old\nsnapshot.model=false\n");
+
+        PrinterCapabilityCache reopened = new PrinterCapabilityCache(directory);
+        assertEquals(1, reopened.size());
+        assertNotNull(reopened.getCapabilities(service));
+    }
+
+    @Test
+    public void invalidateDeletesTheFile() throws IOException, InterruptedException {
+        PrinterCapabilityCache cache = new PrinterCapabilityCache(directory);
+        cache.putCapabilities(service, null);  //a printer without a model is remembered as such
+        PrinterCapabilityCache.flush();
+        Optional<PrinterCapabilities> none = new PrinterCapabilityCache(directory).getCapabilities(service);
+        assertNotNull(none);
+        assertFalse(none.isPresent());
+
+        cache.invalidate(service);
+        PrinterCapabilityCache.flush();
+        assertNull(cache.getCapabilities(service));
+        assertEquals(0, new PrinterCapabilityCache(directory).size());
+    }
+
+    private void write(String name, String text) throws IOException {
+        Files.write(directory.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,65 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for PrinterJobPool
+ *
+ * @author com.kevinnovate
+ */
+public class PrinterJobPoolTest {
+
+    private SimulatedPrintService office, label;
+    private PrinterJobPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        office = new SimulatedPrintService(PrinterCapabilitiesTest.load("name = Office\nunit = mm\nmedia.A4.size = 210 297\n"));
+        label = new SimulatedPrintService(PrinterCapabilitiesTest.load("name = Label\nunit = mm\nmedia.L.size = 62 29\n"));
+        pool = new PrinterJobPool(4, 1);
+    }
+
+    @Test
+    public void reusesJobsOfTheSameService() throws PrinterException {
+        PrinterJob job = pool.acquire(office);
+        assertSame(office, job.getPrintService());
+        pool.release(office, job);
+
+        assertSame(job, pool.acquire(office));
+        assertNotSame(job, pool.acquire(label));
+        assertEquals(1, pool.getHitCount());
+        assertEquals(2, pool.getMissCount());
+    }
+
+    @Test
+    public void keepsOnlyTheConfiguredNumberOfJobs() throws PrinterException {
+        PrinterJob a = pool.acquire(office);
+        PrinterJob b = pool.acquire(office);
+        pool.release(office, a);
+        pool.release(office, b);
+        assertEquals(1, pool.size());
+
+        pool.invalidate(office);
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void poolsDefaultPrinterJobsUnderTheirService() throws PrinterException {
+        PrinterJob job = pool.acquire(label);
+        pool.release(null, job);  //as a job acquired while the label printer was the default
+        assertSame(job, pool.acquire(label));
+
+        PrinterJob byDefault = pool.acquire(null);
+        pool.release(null, byDefault);
+        assertEquals(PrintServiceDiscovery.getDefault() == null ? 0 : 1, pool.size());
+    }
+
+}
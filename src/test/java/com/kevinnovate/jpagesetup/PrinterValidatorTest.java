@@ -0,0 +1,142 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.print.PrintService;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.standard.ColorSupported;
+import javax.print.attribute.standard.QueuedJobCount;
+import javax.print.event.PrintServiceAttributeEvent;
+import javax.print.event.PrintServiceAttributeListener;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for PrinterValidator, comparing printer models with PrinterJobs
+ *
+ * @author com.kevinnovate
+ */
+public class PrinterValidatorTest {
+
+    private PrinterCapabilities laser;
+    private SimulatedPrintService service;
+
+    @Before
+    public void setUp() throws IOException {
+        laser = PrinterCapabilitiesTest.load("name = Office Laser\n"
+                                           + "unit = mm\n"
+                                           + "default = A4\n"
+                                           + "media.A4.size = 210 297\n"
+                                           + "media.A4.margins = 4.2 4.2 4.2 4.2\n"
+                                           + "media.Letter.size = 215.9 279.4\n"
+                                           + "media.Letter.margins = 6.4 4.2 6.4 4.2\n");
+        service = new SimulatedPrintService(laser);
+    }
+
+    /**
+     * The model built from the attributes of the simulated service, as built for a real printer
+     */
+    private PrinterCapabilities modelFromAttributes() {
+        PrinterCapabilities model = PrinterCapabilities.fromPrintService(service);
+        assertNotNull(model);
+        return model;
+    }
+
+    @Test
+    public void modelDescribesTheReportedMedia() {
+        PrinterCapabilities model = modelFromAttributes();
+        assertEquals(2, model.getMedia().size());
+        assertEquals(PageFormatEngine.Status.VALID, PageFormatEngine.check(laser.getDefaultPage(), model.getDefaultPage()));
+
+        double[] range = model.getCustomSizeRange();  //the extent of the media, not any size at all
+        assertEquals(laser.findMedia(595.28, 841.89).getWidth(), range[0], 0.01);
+        assertEquals(laser.findMedia(612, 792).getHeight(), range[1], 0.01);
+        assertEquals(laser.findMedia(612, 792).getWidth(), range[2], 0.01);
+        assertEquals(laser.findMedia(595.28, 841.89).getHeight(), range[3], 0.01);
+    }
+
+    @Test
+    public void modelOfAPrinterThatFollowsItIsUsed() {
+        PrinterCapabilities model = modelFromAttributes();
+        assertTrue(PrinterValidator.reproduces(model, model::getDefaultPage, model::validate));
+    }
+
+    @Test
+    public void modelOfAPrinterThatAcceptsAnySizeIsRejected() {
+        PrinterCapabilities model = modelFromAttributes();
+        assertFalse(PrinterValidator.reproduces(model, model::getDefaultPage, (PageFormat f) -> {
+            PageFormat v = model.validate(f);
+            Paper p = f.getPaper();
+            if (model.findMedia(p.getWidth(), p.getHeight()) == null)  //a custom size outside the media's extent is kept
+                return (PageFormat)f.clone();
+            return v;
+        }));
+    }
+
+    @Test
+    public void modelIsComparedWithThePrinterJob() throws PrinterException {
+        PrinterCapabilities model = modelFromAttributes();
+        PrinterJob job = PrinterJob.getPrinterJob();
+        job.setPrintService(service);
+
+        boolean same = true;
+        for (PrinterCapabilities.Media m : model.getMedia()) {
+            PageFormat f = PrinterCapabilitiesTest.page(m.getWidth(), m.getHeight());
+            same &= PageFormatEngine.check(model.validate(f), job.validatePage(f)) == PageFormatEngine.Status.VALID;
+        }
+
+        //A PrinterJob that ignores the reported margins, as on platforms without a printer driver, is not replaced
+        assumeTrue("the PrinterJob follows the simulated margins", !same);
+        assertFalse(PrinterValidator.reproduces(model, job::defaultPage, job::validatePage));
+        assertNull(PrinterValidator.buildModel(service));
+    }
+
+    @Test
+    public void rebuildsTheModelOnlyWhenTheConfigurationChanges() {
+        HashPrintServiceAttributeSet attributes = new HashPrintServiceAttributeSet(ColorSupported.NOT_SUPPORTED);
+        List<PrintServiceAttributeListener> listeners = new ArrayList<>();
+        AtomicInteger builds = new AtomicInteger();
+        PrintService reporting = (PrintService)Proxy.newProxyInstance(PrintService.class.getClassLoader(), new Class<?>[] {PrintService.class},
+                (Object proxy, Method m, Object[] args) -> {
+                    switch (m.getName()) {
+                        case "getAttributes": return new HashPrintServiceAttributeSet(attributes);
+                        case "getSupportedAttributeValues": builds.incrementAndGet(); return null;  //no media, so no model
+                        case "addPrintServiceAttributeListener": listeners.add((PrintServiceAttributeListener)args[0]); return null;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+
+        assertNull(PrinterValidator.getCapabilities(reporting));
+        assertNull(PrinterValidator.getCapabilities(reporting));
+        assertEquals(1, builds.get());
+
+        listeners.get(0).attributeUpdate(new PrintServiceAttributeEvent(reporting, new HashPrintServiceAttributeSet(new QueuedJobCount(2))));
+        PrinterValidator.getCapabilities(reporting);
+        assertEquals(1, builds.get());
+
+        listeners.get(0).attributeUpdate(new PrintServiceAttributeEvent(reporting, new HashPrintServiceAttributeSet(ColorSupported.SUPPORTED)));
+        PrinterValidator.getCapabilities(reporting);
+        PrinterValidator.invalidate(reporting);
+        PrinterValidator.getCapabilities(reporting);
+        assertEquals(3, builds.get());
+        assertEquals(1, listeners.size());
+    }
+
+}
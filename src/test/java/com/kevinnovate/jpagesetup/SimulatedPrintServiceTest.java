@@ -0,0 +1,49 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.io.IOException;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.standard.Media;
+import javax.print.attribute.standard.MediaPrintableArea;
+import javax.print.attribute.standard.MediaSize;
+import javax.print.attribute.standard.MediaSizeName;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for SimulatedPrintService
+ *
+ * @author com.kevinnovate
+ */
+public class SimulatedPrintServiceTest {
+
+    @Test
+    public void usesStandardNamesForStandardSizes() throws IOException {
+        SimulatedPrintService s = new SimulatedPrintService(PrinterCapabilitiesTest.load(
+                "unit = mm\nmedia.A4.size = 210 297\nmedia.A4.margins = 5 5 5 5\n"));
+        assertEquals(MediaSizeName.ISO_A4, s.getDefaultAttributeValue(Media.class));
+    }
+
+    @Test
+    public void keepsCustomSizesToItself() throws IOException {
+        SimulatedPrintService s = new SimulatedPrintService(PrinterCapabilitiesTest.load(
+                "unit = mm\nmedia.Odd.size = 123 234\nmedia.Odd.margins = 1 2 3 4\n"));
+        MediaSizeName odd = (MediaSizeName)((Media[])s.getSupportedAttributeValues(Media.class, null, null))[0];
+        assertEquals("Odd", odd.toString());
+
+        //the JVM wide MediaSize lookups must not learn the simulated size
+        assertNull(MediaSize.getMediaSizeForName(odd));
+        assertNotEquals(odd, MediaSize.findMedia(123, 234, MediaSize.MM));
+
+        MediaPrintableArea[] area = (MediaPrintableArea[])s.getSupportedAttributeValues(MediaPrintableArea.class, null,
+                                                                                         new HashAttributeSet(odd));
+        float[] mm = area[0].getPrintableArea(MediaPrintableArea.MM);
+        assertEquals(1, mm[0], 0.01);
+        assertEquals(2, mm[1], 0.01);
+        assertEquals(119, mm[2], 0.01);
+        assertEquals(228, mm[3], 0.01);
+    }
+
+}
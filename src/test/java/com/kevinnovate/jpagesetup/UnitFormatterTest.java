@@ -0,0 +1,41 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.util.Locale;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for UnitFormatter
+ *
+ * @author com.kevinnovate
+ */
+public class UnitFormatterTest {
+
+    private final UnitFormatter inches = PageMeasureUnit.IN.getFormatter(Locale.US);
+
+    @Test
+    public void formatsWithTheUnitPrecision() {
+        assertEquals("8.5", inches.format(8.5));
+        assertEquals("0.05", inches.format(0.05));
+        assertEquals("0", inches.format(0.001));
+        assertEquals("-1.25", inches.format(-1.25));
+        assertEquals("8.5 x 11 in", inches.formatDimensions(8.5, 11));
+    }
+
+    @Test
+    public void decimalFormatRoundsLikeFormat() {
+        for (double v : new double[] {2.125, -2.125, 0.125, 0.375, 1.5, 2.5}) {
+            assertEquals("2 decimals of " + v, inches.format(v), inches.newDecimalFormat().format(v));
+            assertEquals("no decimals of " + v, PageMeasureUnit.PT.getFormatter(Locale.US).format(v),
+                         PageMeasureUnit.PT.getFormatter(Locale.US).newDecimalFormat().format(v));
+        }
+        assertEquals("2.13", inches.newDecimalFormat().format(2.125));
+    }
+
+    @Test
+    public void hugeValuesUseTheDecimalFormat() {
+        assertEquals(inches.newDecimalFormat().format(1e20), inches.format(1e20));
+    }
+
+}
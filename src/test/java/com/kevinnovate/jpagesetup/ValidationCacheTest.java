@@ -0,0 +1,118 @@
+
+package com.kevinnovate.jpagesetup;
+
+import java.awt.print.PageFormat;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import javax.print.PrintService;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.standard.ColorSupported;
+import javax.print.attribute.standard.PrinterName;
+import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.QueuedJobCount;
+import javax.print.event.PrintServiceAttributeEvent;
+import javax.print.event.PrintServiceAttributeListener;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for ValidationCache
+ *
+ * @author com.kevinnovate
+ */
+public class ValidationCacheTest {
+
+    private final HashPrintServiceAttributeSet attributes = new HashPrintServiceAttributeSet();
+    private final List<PrintServiceAttributeListener> listeners = new ArrayList<>();
+    private PrintService service;
+    private ValidationCache cache;
+
+    @Before
+    public void setUp() {
+        attributes.add(new PrinterName("Office", null));
+        attributes.add(ColorSupported.NOT_SUPPORTED);
+        attributes.add(PrinterState.IDLE);
+        attributes.add(new QueuedJobCount(0));
+
+        service = (PrintService)Proxy.newProxyInstance(PrintService.class.getClassLoader(), new Class<?>[] {PrintService.class},
+                (Object proxy, Method m, Object[] args) -> {
+                    switch (m.getName()) {
+                        case "getAttributes": return new HashPrintServiceAttributeSet(attributes);
+                        case "addPrintServiceAttributeListener": listeners.add((PrintServiceAttributeListener)args[0]); return null;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        case "toString": return "Office";
+                        default: return null;
+                    }
+                });
+        cache = new ValidationCache(2);
+    }
+
+    private static PageFormat page(double width) {
+        return PrinterCapabilitiesTest.page(width, 792);
+    }
+
+    private void notify(Attribute... changed) {
+        HashPrintServiceAttributeSet set = new HashPrintServiceAttributeSet();
+        for (Attribute a : changed)
+            set.add(a);
+        for (PrintServiceAttributeListener l : listeners)
+            l.attributeUpdate(new PrintServiceAttributeEvent(service, set));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        assertNull(cache.get(service, page(612)));
+        cache.put(service, page(612), page(600));
+        assertEquals(600, cache.get(service, page(612)).getWidth(), 1e-9);
+        assertNotNull(cache.get(service, page(612 + 1e-7)));  //the same fixed point geometry
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        cache.put(service, page(100), page(100));
+        cache.put(service, page(200), page(200));
+        cache.get(service, page(100));
+        cache.put(service, page(300), page(300));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(service, page(100)));
+        assertNull(cache.get(service, page(200)));
+    }
+
+    @Test
+    public void listensOncePerService() {
+        cache.put(service, page(100), page(100));
+        cache.put(service, page(200), page(200));
+        assertEquals(1, listeners.size());
+    }
+
+    @Test
+    public void keepsEntriesWhenThePrinterIsBusy() {
+        cache.put(service, page(100), page(100));
+        notify(PrinterState.PROCESSING, new QueuedJobCount(3));
+        notify(attributes.toArray());  //the full set sent with a first notification
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void discardsEntriesWhenTheConfigurationChanges() {
+        cache.put(service, page(100), page(100));
+        notify(ColorSupported.SUPPORTED, new QueuedJobCount(1));
+        assertEquals(0, cache.size());
+
+        cache.put(service, page(100), page(100));
+        notify(ColorSupported.SUPPORTED);  //no longer a change
+        assertEquals(1, cache.size());
+        cache.invalidate(service);
+        assertEquals(0, cache.size());
+    }
+
+}